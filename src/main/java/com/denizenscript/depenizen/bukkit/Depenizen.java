@@ -53,6 +53,9 @@ public class Depenizen extends JavaPlugin {
         if (BungeeBridge.instance != null && BungeeBridge.instance.connected) {
             BungeeBridge.instance.onShutdown();
         }
+        if (getConfig().getBoolean("Clientizen.enabled")) {
+            ClientizenBridge.shutdown();
+        }
         // To prevent issue with onDisable order, tell Denizen to shutdown NOW (it won't repeat itself).
         Denizen.getInstance().onDisable();
     }
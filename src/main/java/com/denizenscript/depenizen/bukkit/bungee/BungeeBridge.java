@@ -1,8 +1,13 @@
 package com.denizenscript.depenizen.bukkit.bungee;
 
+import com.denizenscript.denizen.objects.PlayerTag;
 import com.denizenscript.denizencore.DenizenCore;
+import com.denizenscript.denizencore.events.ScriptEvent;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.DurationTag;
 import com.denizenscript.denizencore.objects.core.ElementTag;
 import com.denizenscript.denizencore.objects.core.ListTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
 import com.denizenscript.denizencore.scripts.commands.core.AdjustCommand;
 import com.denizenscript.denizencore.tags.Attribute;
 import com.denizenscript.denizencore.tags.ReplaceableTagEvent;
@@ -10,13 +15,13 @@ import com.denizenscript.denizencore.tags.TagManager;
 import com.denizenscript.denizencore.tags.TagRunnable;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
+import com.denizenscript.denizencore.utilities.debugging.DebugSubmitter;
 import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.packets.in.*;
-import com.denizenscript.depenizen.bukkit.bungee.packets.out.ControlsProxyCommandPacketOut;
-import com.denizenscript.depenizen.bukkit.bungee.packets.out.ControlsProxyPingPacketOut;
-import com.denizenscript.depenizen.bukkit.bungee.packets.out.KeepAlivePacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.*;
 import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeCommand;
 import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeExecuteCommand;
+import com.denizenscript.depenizen.bukkit.commands.bungee.BungeePublishCommand;
 import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeRunCommand;
 import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeTagCommand;
 import com.denizenscript.depenizen.bukkit.events.bungee.*;
@@ -25,14 +30,29 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.denizenscript.denizencore.events.ScriptEvent.registerScriptEvent;
 
@@ -42,7 +62,13 @@ public class BungeeBridge {
 
     public Channel channel;
 
-    public NioEventLoopGroup workerGroup;
+    public EventLoopGroup workerGroup;
+
+    public Class<? extends SocketChannel> channelClass;
+
+    public String transportName;
+
+    public int socketBufferSize = 256 * 1024;
 
     public BungeeClientHandler handler;
 
@@ -58,28 +84,213 @@ public class BungeeBridge {
 
     public boolean connected = false;
 
+    // Optional features the proxy announces in its YourInfo packet
+    public static final int FEATURE_BINARY_DEFINITIONS = 1;
+    public static final int FEATURE_MULTI_TAG = 2;
+    public static final int FEATURE_PLAYER_LIST = 4;
+    public static final int FEATURE_PING_TEMPLATE = 8;
+    public static final int FEATURE_MULTICAST = 16;
+    public static final int FEATURE_CHUNKED = 32;
+    public static final int FEATURE_KEEPALIVE_RTT = 64;
+    public static final int FEATURE_TOPICS = 128;
+
+    /**
+     * Server name that targets every server on the network in {@link #sendToServers(List, BungeePacketOut)}.
+     */
+    public static final String ALL_SERVERS = "*";
+
+    public int proxyFeatures = 0;
+
+    public boolean proxySupports(int feature) {
+        return (proxyFeatures & feature) != 0;
+    }
+
+    public boolean referencedDefinitionsOnly = false;
+
+    public boolean binaryDefinitions = false;
+
+    public long tagTimeoutMillis = 30 * 1000;
+
+    public long runTimeoutMillis = 60 * 1000;
+
     public boolean controlsProxyPing = false;
 
     public boolean controlsProxyCommand = false;
 
+    /**
+     * Set by the 'ping_template' mechanism. Pings from addresses that don't match the "Bungee.ping event addresses" config option are answered from this directly.
+     * Max players is -1 and other fields are null where the proxy's own value should be kept.
+     */
+    public volatile BungeeProxyServerListPingScriptEvent.PingData pingTemplate;
+
+    public String pingEventAddresses = "";
+
+    public ScriptEvent.MatchHelper pingEventMatcher;
+
+    public int pingTemplateRefreshTicks = 20 * 60;
+
+    public int ticksTilPingTemplateRefresh = 0;
+
     public int keepAliveTickRate = 10;
 
+    public int busyKeepAliveTickRate = 40;
+
+    public volatile long lastTrafficSent = 0;
+
+    public BungeeLatencyTracker latency = new BungeeLatencyTracker();
+
+    public long timeoutMillis = 20 * 1000;
+
+    public double timeoutRttMultiplier = 10;
+
+    /**
+     * How long without receiving anything before the connection is considered lost.
+     * This is at least the "Bungee.timeout" config option, and several busy keepalive intervals, since keepalives are sent from the main thread and a main thread stall (a world save, a GC pause) shouldn't drop the connection.
+     * A slow connection (as measured by keepalive round trip times, if the proxy supports it) extends it further.
+     */
+    public long getTimeoutMillis() {
+        long minimum = Math.max(timeoutMillis, busyKeepAliveTickRate * 50L * 4);
+        BungeeLatencyTracker.Summary summary = latency.summarize();
+        if (summary == null) {
+            return minimum;
+        }
+        return Math.max(minimum, (long) (summary.p99Nanos() / 1_000_000 * timeoutRttMultiplier));
+    }
+
     public int ticksTilKeepalive = 10;
 
     public long lastPacketReceived = 0;
 
+    public int flushThreshold = 64 * 1024;
+
+    public int unflushedBytes = 0;
+
+    public int flushesThisTick = 0;
+
+    public int flushesLastTick = 0;
+
+    public BungeePacketStats stats = new BungeePacketStats();
+
+    public BungeeInbox inbox = new BungeeInbox(stats);
+
+    public int statsLogIntervalTicks = 0;
+
+    public int ticksTilStatsLog = 0;
+
+    public BungeeTagCache tagCache = new BungeeTagCache();
+
+    public NetworkPlayerDirectory playerDirectory = new NetworkPlayerDirectory();
+
+    public BungeeOfflineQueue offlineQueue = new BungeeOfflineQueue();
+
+    public BungeeCommandCache commandCache = new BungeeCommandCache();
+
+    public BungeePlayerResolver playerResolver = new BungeePlayerResolver();
+
+    public int chunkSize = 256 * 1024;
+
+    public int chunkBytesPerTick = 1024 * 1024;
+
+    public int maxChunkedPacketSize = 64 * 1024 * 1024;
+
+    public static class OutgoingChunkStream {
+
+        public int streamId;
+
+        public int packetId;
+
+        /**
+         * The encoded packet without its header.
+         */
+        public ByteBuf data;
+    }
+
+    public final ConcurrentLinkedQueue<OutgoingChunkStream> outgoingChunks = new ConcurrentLinkedQueue<>();
+
+    public final AtomicInteger nextChunkStreamId = new AtomicInteger();
+
+    public int writeBufferLowWaterMark = 512 * 1024;
+
+    public int writeBufferHighWaterMark = 2 * 1024 * 1024;
+
+    // Counted from both the main thread and Netty threads
+    public final AtomicLong backpressureEvents = new AtomicLong();
+
+    public final AtomicLong backpressureQueued = new AtomicLong();
+
+    public final AtomicLong backpressureDropped = new AtomicLong();
+
+    public long reconnectBaseDelayMillis = 2000;
+
+    public long reconnectMaxDelayMillis = 60 * 1000;
+
+    public int reconnectAttempts = 0;
+
     public void checkBroadcastProxyPing() {
         if (connected) {
-            sendPacket(new ControlsProxyPingPacketOut(controlsProxyPing));
+            sendPacket(new ControlsProxyPingPacketOut(shouldControlProxyPing()));
+            sendPingTemplate();
+        }
+    }
+
+    public boolean shouldControlProxyPing() {
+        return controlsProxyPing || pingTemplate != null;
+    }
+
+    public boolean shouldFirePingEvent(String address) {
+        if (!controlsProxyPing) {
+            return false;
+        }
+        return pingTemplate == null || (pingEventMatcher != null && pingEventMatcher.doesMatch(address));
+    }
+
+    public void sendPingTemplate() {
+        ticksTilPingTemplateRefresh = pingTemplateRefreshTicks;
+        // Proxies that don't support templates still send every ping here, where they get answered from the template without the main thread
+        if (connected && proxySupports(FEATURE_PING_TEMPLATE)) {
+            sendPacket(new PingTemplatePacketOut(pingTemplate, pingEventAddresses, controlsProxyPing));
         }
     }
 
+    public void setPingTemplate(BungeeProxyServerListPingScriptEvent.PingData template) {
+        pingTemplate = template;
+        checkBroadcastProxyPing();
+    }
+
     public void checkBroadcastProxyCommand() {
         if (connected) {
             sendPacket(new ControlsProxyCommandPacketOut(controlsProxyCommand));
         }
     }
 
+    public volatile boolean subscribedToAllTopics = false;
+
+    public volatile Set<String> subscribedTopics = Collections.emptySet();
+
+    public void setSubscriptions(boolean all, Set<String> topics) {
+        subscribedToAllTopics = all;
+        subscribedTopics = topics;
+        checkBroadcastSubscriptions();
+    }
+
+    public boolean isSubscribedTo(String topic) {
+        return subscribedToAllTopics || subscribedTopics.contains(topic);
+    }
+
+    public void checkBroadcastSubscriptions() {
+        if (connected && proxySupports(FEATURE_TOPICS)) {
+            sendPacket(new SubscribeTopicsPacketOut(subscribedToAllTopics, subscribedTopics));
+        }
+    }
+
+    /**
+     * Sends a message to every other server subscribed to the topic, the proxy does the fan-out.
+     * Only usable if the proxy supports {@link #FEATURE_TOPICS}.
+     */
+    public void publish(String topic, ObjectTag message) {
+        sendPacket(new PublishPacketOut(topic, message));
+    }
+
     public void registerPackets() {
         packets.put(1, new KeepAlivePacketIn());
         packets.put(50, new YourInfoPacketIn());
@@ -94,6 +305,14 @@ public class BungeeBridge {
         packets.put(59, new ReadTagPacketIn());
         packets.put(60, new TagResponsePacketIn());
         packets.put(61, new ProxyCommandPacketIn());
+        packets.put(62, new ReadTagsPacketIn());
+        packets.put(63, new TagsResponsePacketIn());
+        packets.put(64, new PlayerListPacketIn());
+        packets.put(65, new RunCachedCommandsPacketIn());
+        packets.put(66, new CommandsCacheMissPacketIn());
+        packets.put(67, new RunScriptResponsePacketIn());
+        packets.put(68, new ChunkPacketIn());
+        packets.put(69, new TopicMessagePacketIn());
     }
 
     public static void runOnMainThread(Runnable run) {
@@ -102,32 +321,297 @@ public class BungeeBridge {
         }
         else {
             if (Depenizen.instance.isEnabled()) {
-                Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, run);
+                if (instance != null) {
+                    instance.inbox.add(run);
+                }
+                else {
+                    Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, run);
+                }
             }
         }
     }
 
+    /**
+     * Like {@link #runOnMainThread(Runnable)}, for responses that a held queue is waiting on. See {@link BungeeInbox#addUrgent(Runnable)}.
+     */
+    public static void runOnMainThreadUrgently(Runnable run) {
+        if (Bukkit.isPrimaryThread()) {
+            run.run();
+        }
+        else if (instance != null) {
+            instance.inbox.addUrgent(run);
+        }
+        else {
+            runOnMainThread(run);
+        }
+    }
+
+    public boolean isWritable() {
+        return channel != null && channel.isWritable();
+    }
+
+    /**
+     * The number of bytes written to the channel that the proxy hasn't received yet.
+     */
+    public long getPendingBytes() {
+        if (channel == null) {
+            return 0;
+        }
+        ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        return outboundBuffer == null ? 0 : outboundBuffer.totalPendingWriteBytes();
+    }
+
     public void sendPacket(BungeePacketOut packet) {
-        if (!connected && !packet.canBeFirstPacket) {
-            runOnMainThread(() -> Debug.echoError("BungeeBridge tried to send packet '" + packet.getClass().getName() + "' while not connected."));
-            return;
+        if (!packet.canBeFirstPacket) {
+            if (!connected) {
+                if (offlineQueue.isEnabled() && offlineQueue.offer(packet)) {
+                    return;
+                }
+                if (packet.getOfflinePolicy() == BungeePacketOut.OfflinePolicy.DROP || !offlineQueue.isEnabled()) {
+                    runOnMainThread(() -> Debug.echoError("BungeeBridge tried to send packet '" + packet.getClass().getName() + "' while not connected."));
+                }
+                else {
+                    runOnMainThread(() -> Debug.echoError("BungeeBridge dropped packet '" + packet.getClass().getName() + "': the offline queue is full."));
+                }
+                return;
+            }
+            // When the proxy isn't keeping up, packets go to the same queue instead of piling up in Netty's unbounded outbound buffer
+            // While queued packets are waiting to be replayed, anything that can be queued goes after them to keep the order
+            boolean backedUp = !isWritable();
+            if ((backedUp || offlineQueue.size() > 0) && offlineQueue.isEnabled()) {
+                switch (getBackpressurePolicy(packet)) {
+                    case QUEUE -> {
+                        if (offlineQueue.offerBackedUp(packet)) {
+                            if (backedUp) {
+                                backpressureQueued.incrementAndGet();
+                            }
+                        }
+                        else {
+                            backpressureDropped.incrementAndGet();
+                        }
+                        return;
+                    }
+                    case DROP -> {
+                        if (backedUp) {
+                            backpressureDropped.incrementAndGet();
+                            return;
+                        }
+                    }
+                    case SEND -> {
+                    }
+                }
+            }
         }
+        writePacket(packet);
+    }
+
+    /**
+     * Overrides for {@link BungeePacketOut#getBackpressurePolicy()}, by packet class name. Set from the "Bungee.backpressure policies" config option.
+     */
+    public Map<String, BungeePacketOut.BackpressurePolicy> backpressurePolicies = new HashMap<>();
+
+    public BungeePacketOut.BackpressurePolicy getBackpressurePolicy(BungeePacketOut packet) {
+        // The proxy drops the connection if keepalives stop, which is worse than anything they'd add to the backlog
+        if (packet instanceof KeepAlivePacketOut) {
+            return BungeePacketOut.BackpressurePolicy.SEND;
+        }
+        BungeePacketOut.BackpressurePolicy policy = backpressurePolicies.get(packet.getClass().getSimpleName());
+        return policy != null ? policy : packet.getBackpressurePolicy();
+    }
+
+    /**
+     * Redirects a packet to each of the given servers, encoding it only once.
+     */
+    public void sendToServers(List<String> servers, BungeePacketOut packet) {
+        EncodedPacketOut encoded = new EncodedPacketOut(packet);
+        if (proxySupports(FEATURE_MULTICAST)) {
+            sendPacket(new MulticastRedirectPacketOut(servers, encoded));
+        }
+        else {
+            List<String> targets = servers;
+            if (servers.contains(ALL_SERVERS)) {
+                targets = new ArrayList<>(knownServers);
+            }
+            for (String server : targets) {
+                sendPacket(new RedirectPacketOut(server, encoded));
+            }
+        }
+        if (connected) {
+            sendPacket(new KeepAlivePacketOut());
+        }
+    }
+
+    public void replayOfflineQueue(boolean afterReconnect) {
+        int count = 0;
+        BungeePacketOut packet;
+        while (connected && isWritable() && (packet = offlineQueue.poll()) != null) {
+            writePacket(packet);
+            count++;
+        }
+        if (count > 0) {
+            flush();
+            if (afterReconnect) {
+                Debug.log("Depenizen-Bungee sent " + count + " packets queued while disconnected.");
+            }
+        }
+    }
+
+    private void writePacket(BungeePacketOut packet) {
         ByteBuf buf = channel.alloc().buffer();
+        buf.writerIndex(8);
         packet.writeTo(buf);
-        ByteBuf header = channel.alloc().buffer();
-        header.writeInt(buf.writerIndex());
-        header.writeInt(packet.getPacketId());
-        channel.writeAndFlush(header);
-        channel.writeAndFlush(buf);
-        if (connected) {
-            ticksTilKeepalive = 0;
+        buf.setInt(0, buf.writerIndex() - 8);
+        buf.setInt(4, packet.getPacketId());
+        stats.sent(packet.getPacketId(), buf.readableBytes());
+        if (buf.readableBytes() - 8 > chunkSize && proxySupports(FEATURE_CHUNKED)) {
+            // Sent a piece at a time over the next ticks, so other traffic isn't stuck behind it
+            OutgoingChunkStream stream = new OutgoingChunkStream();
+            stream.streamId = nextChunkStreamId.incrementAndGet();
+            stream.packetId = packet.getPacketId();
+            stream.data = buf.skipBytes(8);
+            outgoingChunks.add(stream);
+            return;
+        }
+        if (!Bukkit.isPrimaryThread()) {
+            // Writes from other threads can't be tracked by the per-tick flush, so send those immediately
+            channel.writeAndFlush(buf);
+        }
+        else {
+            unflushedBytes += buf.readableBytes();
+            channel.write(buf);
+            if (unflushedBytes >= flushThreshold) {
+                flush();
+            }
+        }
+        if (!(packet instanceof KeepAlivePacketOut)) {
+            lastTrafficSent = CoreUtilities.monotonicMillis();
+        }
+    }
+
+    public void sendChunks() {
+        int budget = chunkBytesPerTick;
+        OutgoingChunkStream stream;
+        while (budget > 0 && isWritable() && (stream = outgoingChunks.peek()) != null) {
+            int totalLength = stream.data.writerIndex() - 8;
+            int offset = stream.data.readerIndex() - 8;
+            int length = Math.min(chunkSize, stream.data.readableBytes());
+            ByteBuf header = channel.alloc().buffer(8 + 16);
+            header.writeInt(16 + length);
+            header.writeInt(21);
+            header.writeInt(stream.streamId);
+            header.writeInt(stream.packetId);
+            header.writeInt(totalLength);
+            header.writeInt(offset);
+            channel.write(header);
+            channel.write(stream.data.readRetainedSlice(length));
+            unflushedBytes += 8 + 16 + length;
+            budget -= length;
+            if (!stream.data.isReadable()) {
+                outgoingChunks.poll();
+                stream.data.release();
+            }
+        }
+    }
+
+    public void clearChunks() {
+        OutgoingChunkStream stream;
+        while ((stream = outgoingChunks.poll()) != null) {
+            stream.data.release();
+        }
+    }
+
+    public void flush() {
+        if (unflushedBytes == 0) {
+            return;
+        }
+        unflushedBytes = 0;
+        flushesThisTick++;
+        channel.flush();
+    }
+
+    /**
+     * Some servers bundle a Netty without the native epoll classes, so even checking can fail.
+     */
+    public static boolean isEpollAvailable() {
+        try {
+            return Epoll.isAvailable();
+        }
+        catch (Throwable ignored) {
+            return false;
         }
     }
 
     public void init(String address, int port) {
         this.address = address;
         this.port = port;
-        workerGroup = new NioEventLoopGroup();
+        flushThreshold = Depenizen.instance.getConfig().getInt("Bungee.flush threshold", 64 * 1024);
+        referencedDefinitionsOnly = Depenizen.instance.getConfig().getBoolean("Bungee.referenced definitions only", false);
+        binaryDefinitions = Depenizen.instance.getConfig().getBoolean("Bungee.binary definitions", false);
+        tagTimeoutMillis = (long) (Depenizen.instance.getConfig().getDouble("Bungee.tag timeout", 30) * 1000);
+        runTimeoutMillis = (long) (Depenizen.instance.getConfig().getDouble("Bungee.run timeout", 60) * 1000);
+        tagCache.maxSize = Depenizen.instance.getConfig().getInt("Bungee.tag cache size", 1000);
+        commandCache.enabled = Depenizen.instance.getConfig().getBoolean("Bungee.command cache", false);
+        commandCache.maxSize = Depenizen.instance.getConfig().getInt("Bungee.command cache size", 500);
+        playerResolver.maxSize = Depenizen.instance.getConfig().getInt("Bungee.player cache size", 2000);
+        try {
+            playerResolver.unknownPolicy = BungeePlayerResolver.UnknownPlayerPolicy.valueOf(CoreUtilities.toUpperCase(Depenizen.instance.getConfig().getString("Bungee.unknown players", "none")));
+        }
+        catch (IllegalArgumentException ex) {
+            Debug.echoError("Invalid 'Bungee.unknown players' config option, must be 'none' or 'lookup'.");
+        }
+        Bukkit.getPluginManager().registerEvents(playerResolver, Depenizen.instance);
+        playerResolver.prefill();
+        // Chunks must fit in a frame along with their header
+        chunkSize = Math.max(1024, Math.min(BungeeClientHandler.MAX_CHUNKED_MODE_FRAME - 64, Depenizen.instance.getConfig().getInt("Bungee.chunk size", 256 * 1024)));
+        chunkBytesPerTick = Depenizen.instance.getConfig().getInt("Bungee.chunk bytes per tick", 1024 * 1024);
+        maxChunkedPacketSize = Depenizen.instance.getConfig().getInt("Bungee.max chunked packet size", 64 * 1024 * 1024);
+        writeBufferHighWaterMark = Depenizen.instance.getConfig().getInt("Bungee.write buffer high", 2 * 1024 * 1024);
+        writeBufferLowWaterMark = Math.min(writeBufferHighWaterMark, Depenizen.instance.getConfig().getInt("Bungee.write buffer low", 512 * 1024));
+        keepAliveTickRate = Math.max(1, Depenizen.instance.getConfig().getInt("Bungee.keepalive interval", 10));
+        busyKeepAliveTickRate = Math.max(keepAliveTickRate, Depenizen.instance.getConfig().getInt("Bungee.busy keepalive interval", 40));
+        timeoutMillis = (long) (Depenizen.instance.getConfig().getDouble("Bungee.timeout", 20) * 1000);
+        timeoutRttMultiplier = Depenizen.instance.getConfig().getDouble("Bungee.timeout rtt multiplier", 10);
+        offlineQueue.maxSize = Depenizen.instance.getConfig().getInt("Bungee.offline queue size", 1000);
+        ConfigurationSection policies = Depenizen.instance.getConfig().getConfigurationSection("Bungee.backpressure policies");
+        if (policies != null) {
+            for (String packetName : policies.getKeys(false)) {
+                try {
+                    backpressurePolicies.put(packetName, BungeePacketOut.BackpressurePolicy.valueOf(CoreUtilities.toUpperCase(policies.getString(packetName))));
+                }
+                catch (IllegalArgumentException ex) {
+                    Debug.echoError("Invalid 'Bungee.backpressure policies' config option for '" + packetName + "', must be 'queue', 'drop' or 'send'.");
+                }
+            }
+        }
+        reconnectBaseDelayMillis = (long) (Depenizen.instance.getConfig().getDouble("Bungee.reconnect delay", 2) * 1000);
+        reconnectMaxDelayMillis = (long) (Depenizen.instance.getConfig().getDouble("Bungee.max reconnect delay", 60) * 1000);
+        pingEventAddresses = Depenizen.instance.getConfig().getString("Bungee.ping event addresses", "");
+        pingEventMatcher = pingEventAddresses.isEmpty() ? null : ScriptEvent.createMatcher(pingEventAddresses);
+        pingTemplateRefreshTicks = (int) (Depenizen.instance.getConfig().getDouble("Bungee.ping template refresh", 60) * 20);
+        statsLogIntervalTicks = (int) (Depenizen.instance.getConfig().getDouble("Bungee.stats log interval", 0) * 20);
+        ticksTilStatsLog = statsLogIntervalTicks;
+        inbox.tickBudgetNanos = (long) (Depenizen.instance.getConfig().getDouble("Bungee.main thread budget", 5) * 1_000_000);
+        socketBufferSize = Depenizen.instance.getConfig().getInt("Bungee.socket buffer size", 256 * 1024);
+        // A single connection only ever uses one event loop thread, so a larger group just idles
+        int threads = Math.max(0, Depenizen.instance.getConfig().getInt("Bungee.io threads", 1));
+        if (Depenizen.instance.getConfig().getBoolean("Bungee.native transport", true) && isEpollAvailable()) {
+            try {
+                workerGroup = new EpollEventLoopGroup(threads);
+                channelClass = EpollSocketChannel.class;
+                transportName = "epoll";
+            }
+            catch (Throwable ex) {
+                Debug.echoError("Depenizen-Bungee failed to start the native transport, falling back to NIO: " + ex);
+                workerGroup = null;
+            }
+        }
+        if (workerGroup == null) {
+            workerGroup = new NioEventLoopGroup(threads);
+            channelClass = NioSocketChannel.class;
+            transportName = "nio";
+        }
+        Debug.log("Depenizen-Bungee using " + transportName + " transport.");
+        DebugSubmitter.debugHeaderLines.add(() -> "Depenizen-Bungee transport: " + transportName);
         registerPackets();
         connect();
         successInit();
@@ -140,10 +624,18 @@ public class BungeeBridge {
             return;
         }
         connected = false;
+        reconnectPending = true;
         Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
             reconnectPending = false;
             connect();
-        }, delay ? 20 * 5 : 0);
+        }, delay ? Math.max(1, nextReconnectDelayMillis() / 50) : 0);
+    }
+
+    public long nextReconnectDelayMillis() {
+        long max = Math.min(reconnectMaxDelayMillis, reconnectBaseDelayMillis << Math.min(reconnectAttempts, 16));
+        reconnectAttempts++;
+        // Randomize within the upper half, so every backend doesn't hit a restarted proxy at the same moment
+        return max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1);
     }
 
     public boolean shuttingDown = false;
@@ -152,6 +644,7 @@ public class BungeeBridge {
         shuttingDown = true;
         if (connected) {
             try {
+                flush();
                 handler.channel.close().await();
                 connected = false;
             }
@@ -159,6 +652,9 @@ public class BungeeBridge {
                 Debug.echoError(ex);
             }
         }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+        }
     }
 
     private boolean showedLastError = false;
@@ -170,10 +666,25 @@ public class BungeeBridge {
             ticksTilKeepalive = 100;
             hasConnectionLoading = false;
             knownServers.clear();
+            // Proxies that support it resend the full player list after connecting, others fill it in as players join or switch servers
+            playerDirectory.clear();
+            latency.clear();
+            // The receiving end has lost anything partially sent
+            clearChunks();
+            // Other servers may have restarted while disconnected, so don't assume they still have anything cached
+            commandCache.clearSent();
+            proxyFeatures = 0;
             Bootstrap b = new Bootstrap();
             b.group(workerGroup);
-            b.channel(NioSocketChannel.class);
+            b.channel(channelClass);
             b.option(ChannelOption.SO_KEEPALIVE, true);
+            // Packets are already batched and flushed once per tick, so Nagle's algorithm would only add latency
+            b.option(ChannelOption.TCP_NODELAY, true);
+            if (socketBufferSize > 0) {
+                b.option(ChannelOption.SO_SNDBUF, socketBufferSize);
+                b.option(ChannelOption.SO_RCVBUF, socketBufferSize);
+            }
+            b.option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark));
             b.handler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) {
@@ -209,10 +720,12 @@ public class BungeeBridge {
         registerScriptEvent(BungeeProxyServerListPingScriptEvent.class);
         registerScriptEvent(BungeeServerConnectScriptEvent.class);
         registerScriptEvent(BungeeServerDisconnectScriptEvent.class);
+        registerScriptEvent(BungeeMessageScriptEvent.class);
         DenizenCore.commandRegistry.registerCommand(BungeeRunCommand.class);
         DenizenCore.commandRegistry.registerCommand(BungeeExecuteCommand.class);
         DenizenCore.commandRegistry.registerCommand(BungeeCommand.class);
         DenizenCore.commandRegistry.registerCommand(BungeeTagCommand.class);
+        DenizenCore.commandRegistry.registerCommand(BungeePublishCommand.class);
         TagManager.registerTagHandler(new TagRunnable.RootForm() {
             @Override
             public void run(ReplaceableTagEvent event) {
@@ -220,18 +733,43 @@ public class BungeeBridge {
             }
         }, "bungee");
         Bukkit.getScheduler().scheduleSyncRepeatingTask(Depenizen.instance, () -> {
+            inbox.drain();
+            BungeeTagCommand.checkTimeouts();
+            BungeeRunCommand.checkTimeouts();
+            // Everything written during the previous tick goes out in one flush
+            if (channel != null) {
+                if (connected) {
+                    sendChunks();
+                }
+                flush();
+            }
+            flushesLastTick = flushesThisTick;
+            flushesThisTick = 0;
+            if (statsLogIntervalTicks > 0 && --ticksTilStatsLog <= 0) {
+                ticksTilStatsLog = statsLogIntervalTicks;
+                Debug.log("Depenizen-Bungee traffic: " + stats.summarize());
+            }
             if (!connected) {
                 return;
             }
-            if (CoreUtilities.monotonicMillis() > lastPacketReceived + 20 * 1000) {
-                // 20 seconds without a packet = connection lost!
+            long now = CoreUtilities.monotonicMillis();
+            if (now > lastPacketReceived + getTimeoutMillis()) {
                 handler.fail("Connection time out.");
                 return;
             }
             ticksTilKeepalive--;
             if (ticksTilKeepalive <= 0) {
-                sendPacket(new KeepAlivePacketOut());
-                ticksTilKeepalive = keepAliveTickRate;
+                // Flushed immediately, rather than with the rest of next tick's packets, so the measured round trip time doesn't include waiting for the flush
+                sendPacket(new KeepAlivePacketOut(true));
+                flush();
+                // Regular traffic already keeps the connection busy, so keepalives can be less frequent while it's flowing
+                ticksTilKeepalive = now - lastTrafficSent < 1000 ? busyKeepAliveTickRate : keepAliveTickRate;
+            }
+            if (pingTemplate != null && pingTemplateRefreshTicks > 0) {
+                ticksTilPingTemplateRefresh--;
+                if (ticksTilPingTemplateRefresh <= 0) {
+                    sendPingTemplate();
+                }
             }
         }, 1, 1);
         // <--[ObjectType]
@@ -263,6 +801,61 @@ public class BungeeBridge {
                 }
                 BungeeBridge.instance.reconnect(false);
             }
+
+            // <--[mechanism]
+            // @object bungee
+            // @name reset_stats
+            // @input None
+            // @plugin Depenizen, DepenizenBungee, BungeeCord
+            // @description
+            // Resets the counters returned by <@link tag bungee.stats>, for example at the start of a load test.
+            // For example: - adjust bungee reset_stats
+            // -->
+            if (mechanism.matches("reset_stats")) {
+                BungeeBridge.instance.stats.reset();
+            }
+
+            // <--[mechanism]
+            // @object bungee
+            // @name ping_template
+            // @input MapTag
+            // @plugin Depenizen, DepenizenBungee, BungeeCord
+            // @description
+            // Sets a fixed response for proxy server list pings, as a map with any of the keys 'motd', 'max_players', 'version', and 'players' (a list of players for the sample).
+            // Any keys left out keep the proxy's own values. Give no input to remove the template.
+            // While a template is set, pings are answered from it directly, without waiting for the main thread.
+            // The 'proxy server list ping' event will then only fire for addresses that match the "Bungee.ping event addresses" config option, starting from the template's values.
+            // If the proxy supports it, the template is sent to the proxy so those pings never leave it, and resent periodically per the "Bungee.ping template refresh" config option.
+            // For example: - adjust bungee ping_template:[motd=Welcome to the network!;max_players=500]
+            // -->
+            if (mechanism.matches("ping_template")) {
+                if (!mechanism.hasValue()) {
+                    BungeeBridge.instance.setPingTemplate(null);
+                    return;
+                }
+                if (!mechanism.requireObject(MapTag.class)) {
+                    return;
+                }
+                MapTag map = mechanism.valueAsType(MapTag.class);
+                BungeeProxyServerListPingScriptEvent.PingData template = new BungeeProxyServerListPingScriptEvent.PingData();
+                ElementTag maxPlayers = map.getElement("max_players");
+                template.maxPlayers = maxPlayers != null && maxPlayers.isInt() ? maxPlayers.asInt() : -1;
+                ElementTag motd = map.getElement("motd");
+                template.motd = motd == null ? null : motd.asString();
+                ElementTag version = map.getElement("version");
+                template.version = version == null ? null : version.asString();
+                ListTag players = map.getObjectAs("players", ListTag.class, mechanism.context);
+                if (players != null) {
+                    template.playerSample = new ArrayList<>(players.size());
+                    for (PlayerTag player : players.filter(PlayerTag.class, mechanism.context)) {
+                        BungeeProxyServerListPingScriptEvent.PlayerInfo info = new BungeeProxyServerListPingScriptEvent.PlayerInfo();
+                        info.id = player.getUUID();
+                        info.name = player.getName();
+                        template.playerSample.add(info);
+                    }
+                }
+                BungeeBridge.instance.setPingTemplate(template);
+            }
         });
     }
 
@@ -293,6 +886,49 @@ public class BungeeBridge {
                     .getObjectAttribute(attribute.fulfill(1)));
         }
 
+        // <--[tag]
+        // @attribute <bungee.player_server[<player>]>
+        // @returns ElementTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns the name of the server the given player is connected to anywhere on the network, by UUID or name.
+        // Returns nothing if the player is not online or is still connecting to their first server.
+        // This is tracked locally from proxy updates, so it doesn't need to contact the proxy.
+        // -->
+        if (attribute.startsWith("player_server") && attribute.hasParam()) {
+            String input = attribute.getParam();
+            NetworkPlayerDirectory.Entry entry;
+            try {
+                entry = playerDirectory.get(UUID.fromString(input));
+            }
+            catch (IllegalArgumentException ex) {
+                entry = playerDirectory.getByName(input);
+            }
+            if (entry != null && entry.server() != null) {
+                event.setReplacedObject(new ElementTag(entry.server())
+                        .getObjectAttribute(attribute.fulfill(1)));
+            }
+        }
+
+        // <--[tag]
+        // @attribute <bungee.server_players[<server>]>
+        // @returns ListTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns a list of the names of players connected to the given server, as last reported by the proxy.
+        // This is tracked locally from proxy updates, so it doesn't need to contact the proxy.
+        // -->
+        if (attribute.startsWith("server_players") && attribute.hasParam()) {
+            ListTag names = new ListTag();
+            for (UUID uuid : playerDirectory.getServerPlayers(attribute.getParam())) {
+                NetworkPlayerDirectory.Entry entry = playerDirectory.get(uuid);
+                if (entry != null) {
+                    names.add(entry.name());
+                }
+            }
+            event.setReplacedObject(names.getObjectAttribute(attribute.fulfill(1)));
+        }
+
         // <--[tag]
         // @attribute <bungee.connected>
         // @returns ElementTag(Boolean)
@@ -304,5 +940,194 @@ public class BungeeBridge {
             event.setReplacedObject(new ElementTag(connected)
                     .getObjectAttribute(attribute.fulfill(1)));
         }
+
+        // <--[tag]
+        // @attribute <bungee.flushes_per_tick>
+        // @returns ElementTag(Number)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns how many times the Bungee connection was flushed during the previous server tick.
+        // Outgoing packets are grouped together and flushed once per tick (or early, if the "Bungee.flush threshold" config option is exceeded).
+        // -->
+        if (attribute.startsWith("flushes_per_tick")) {
+            event.setReplacedObject(new ElementTag(flushesLastTick)
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.pending_tag_requests>
+        // @returns ElementTag(Number)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns how many 'bungeetag' commands are currently waiting for a response from a remote server.
+        // -->
+        if (attribute.startsWith("pending_tag_requests")) {
+            event.setReplacedObject(new ElementTag(BungeeTagCommand.countPendingRequests())
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.tag_cache_stats>
+        // @returns MapTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns statistics about the 'bungeetag' result cache, as a map with keys 'hits', 'misses', and 'size'.
+        // See <@link command BungeeTag> for how to use the cache.
+        // -->
+        if (attribute.startsWith("tag_cache_stats")) {
+            MapTag stats = new MapTag();
+            stats.putObject("hits", new ElementTag(tagCache.hits));
+            stats.putObject("misses", new ElementTag(tagCache.misses));
+            stats.putObject("size", new ElementTag(tagCache.entries.size()));
+            event.setReplacedObject(stats.getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.command_cache_stats>
+        // @returns MapTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns statistics about the cache of parsed 'bungee' command blocks received from other servers.
+        // The map has keys 'hits' (runs sent by hash only), 'misses' (hashes that had to be re-sent in full), 'compiles' (blocks received in full), and 'size'.
+        // The cache is limited by the "Bungee.command cache size" config option.
+        // -->
+        if (attribute.startsWith("command_cache_stats")) {
+            MapTag stats = new MapTag();
+            stats.putObject("hits", new ElementTag(commandCache.hits));
+            stats.putObject("misses", new ElementTag(commandCache.misses));
+            stats.putObject("compiles", new ElementTag(commandCache.compiles));
+            stats.putObject("size", new ElementTag(commandCache.compiled.size()));
+            event.setReplacedObject(stats.getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.stats>
+        // @returns MapTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns traffic counters per packet id since startup or the last <@link mechanism bungee.reset_stats>.
+        // The map has keys 'in' and 'out', each a map of packet id to a map with 'packets' and 'bytes'.
+        // Incoming packets also have 'name', 'decode_time' (time spent reading the packet on the network thread), and 'handler_time' (time spent handling it on the main thread).
+        // The 'duration' key is how long the counters have been running.
+        // Large outgoing packets that are sent in chunks are counted once, under their own id.
+        // -->
+        if (attribute.startsWith("stats")) {
+            event.setReplacedObject(stats.toMap().getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.latency>
+        // @returns MapTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns the round trip time to the proxy over the last 100 keepalives, as a map with keys 'min', 'avg', and 'p99' (DurationTags), and 'samples'.
+        // Also includes 'timeout', the time without receiving anything after which the connection is considered lost.
+        // Round trip times are only available if the proxy supports measuring them, otherwise only 'timeout' is included.
+        // -->
+        if (attribute.startsWith("latency")) {
+            MapTag result = new MapTag();
+            BungeeLatencyTracker.Summary summary = latency.summarize();
+            if (summary != null) {
+                result.putObject("min", new DurationTag(summary.minNanos() / 1_000_000_000.0));
+                result.putObject("avg", new DurationTag(summary.avgNanos() / 1_000_000_000.0));
+                result.putObject("p99", new DurationTag(summary.p99Nanos() / 1_000_000_000.0));
+                result.putObject("samples", new ElementTag(summary.samples()));
+            }
+            result.putObject("timeout", new DurationTag(getTimeoutMillis() / 1000.0));
+            event.setReplacedObject(result.getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.writable>
+        // @returns ElementTag(Boolean)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns whether the connection to the proxy is currently keeping up with what's being sent.
+        // When this is 'false', new packets are held in the offline queue (or dropped, for packets that are only useful right away) until the proxy catches up.
+        // Scripts that send a lot of data can check this to slow themselves down.
+        // The limits are set by the "Bungee.write buffer low" and "Bungee.write buffer high" config options.
+        // -->
+        if (attribute.startsWith("writable")) {
+            event.setReplacedObject(new ElementTag(isWritable())
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.pending_bytes>
+        // @returns ElementTag(Number)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns the number of bytes that have been sent to the proxy connection but not yet received by the proxy.
+        // -->
+        if (attribute.startsWith("pending_bytes")) {
+            event.setReplacedObject(new ElementTag(getPendingBytes())
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.backpressure_stats>
+        // @returns MapTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns statistics about times the proxy connection couldn't keep up, as a map with keys
+        // 'events' (how many times the connection stopped being writable), 'queued' (packets held back as a result), and 'dropped' (packets dropped as a result).
+        // -->
+        if (attribute.startsWith("backpressure_stats")) {
+            MapTag stats = new MapTag();
+            stats.putObject("events", new ElementTag(backpressureEvents.get()));
+            stats.putObject("queued", new ElementTag(backpressureQueued.get()));
+            stats.putObject("dropped", new ElementTag(backpressureDropped.get()));
+            event.setReplacedObject(stats.getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.offline_queue_size>
+        // @returns ElementTag(Number)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns how many packets sent while disconnected are waiting to be sent once the proxy connection is back.
+        // The queue is limited by the "Bungee.offline queue size" config option.
+        // -->
+        if (attribute.startsWith("offline_queue_size")) {
+            event.setReplacedObject(new ElementTag(offlineQueue.size())
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.offline_dropped>
+        // @returns ElementTag(Number)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns how many packets have been dropped because they were sent while disconnected and couldn't be queued.
+        // -->
+        if (attribute.startsWith("offline_dropped")) {
+            event.setReplacedObject(new ElementTag(offlineQueue.dropped.get())
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.inbox_size>
+        // @returns ElementTag(Number)
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns how many received Bungee packets are currently waiting to be handled on the main thread.
+        // Handling is limited per tick by the "Bungee.main thread budget" config option, and anything left over waits for the next tick.
+        // -->
+        if (attribute.startsWith("inbox_size")) {
+            event.setReplacedObject(new ElementTag(inbox.size.get())
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
+
+        // <--[tag]
+        // @attribute <bungee.inbox_latency>
+        // @returns DurationTag
+        // @plugin Depenizen, DepenizenBungee, BungeeCord
+        // @description
+        // Returns the longest time a received Bungee packet waited before being handled on the main thread, during the most recent tick.
+        // -->
+        if (attribute.startsWith("inbox_latency")) {
+            event.setReplacedObject(new DurationTag(inbox.lastDrainMaxLatencyNanos / 1_000_000_000.0)
+                    .getObjectAttribute(attribute.fulfill(1)));
+        }
     }
 }
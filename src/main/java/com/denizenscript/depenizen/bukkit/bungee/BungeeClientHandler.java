@@ -10,8 +10,11 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.ByteToMessageDecoder;
 import org.bukkit.Bukkit;
 
+import java.util.HashMap;
+
 public class BungeeClientHandler extends ChannelInboundHandlerAdapter {
 
     public static final byte[] FAKE_HANDSHAKE = new byte[] {
@@ -26,6 +29,9 @@ public class BungeeClientHandler extends ChannelInboundHandlerAdapter {
             1 // We request protocol 1: ping status (to avoid uneeded proxy functionality)
     };
 
+    /**
+     * Cumulates incoming data until at least one full packet is available. Null while there is no unprocessed data.
+     */
     public ByteBuf packetBuffer;
 
     public boolean hasClosed = false;
@@ -55,28 +61,88 @@ public class BungeeClientHandler extends ChannelInboundHandlerAdapter {
 
     public BungeePacketIn lastPacket;
 
-    public void reallocateBuf(ChannelHandlerContext ctx) {
-        ByteBuf newBuf = ctx.alloc().buffer(32);
+    /**
+     * Packets larger than this have to be sent in chunks, if the proxy supports chunked transfer.
+     */
+    public static final int MAX_CHUNKED_MODE_FRAME = 1024 * 1024;
+
+    public static final int MAX_CHUNK_STREAMS = 16;
+
+    public static class ChunkStream {
+
+        public int packetId;
+
+        public ByteBuf data;
+    }
+
+    /**
+     * Partially received chunked packets, by stream ID. Only used on the Netty thread.
+     */
+    public HashMap<Integer, ChunkStream> chunkStreams = new HashMap<>();
+
+    public void releaseChunkStreams() {
+        for (ChunkStream stream : chunkStreams.values()) {
+            stream.data.release();
+        }
+        chunkStreams.clear();
+    }
+
+    public void receiveChunk(int streamId, int packetId, int totalLength, int offset, ByteBuf data) {
+        ChunkStream stream = chunkStreams.get(streamId);
+        if (stream == null) {
+            if (offset != 0 || totalLength < 0 || totalLength > BungeeBridge.instance.maxChunkedPacketSize) {
+                fail("Invalid chunked packet start (stream " + streamId + ", offset " + offset + ", total length " + totalLength + ")");
+                return;
+            }
+            if (chunkStreams.size() >= MAX_CHUNK_STREAMS) {
+                fail("Too many chunked packets in progress");
+                return;
+            }
+            if (!BungeeBridge.instance.packets.containsKey(packetId)) {
+                fail("Invalid chunked packet id: " + packetId);
+                return;
+            }
+            stream = new ChunkStream();
+            stream.packetId = packetId;
+            stream.data = channel.alloc().buffer(totalLength, totalLength);
+            chunkStreams.put(streamId, stream);
+        }
+        if (offset != stream.data.writerIndex() || stream.data.writableBytes() < data.readableBytes()) {
+            fail("Invalid chunk for stream " + streamId + " (offset " + offset + ", expected " + stream.data.writerIndex() + ")");
+            return;
+        }
+        stream.data.writeBytes(data);
+        if (stream.data.isWritable()) {
+            return;
+        }
+        chunkStreams.remove(streamId);
+        try {
+            BungeePacketIn packet = BungeeBridge.instance.packets.get(stream.packetId);
+            packet.process(stream.data);
+            lastPacket = packet;
+        }
+        finally {
+            stream.data.release();
+        }
+    }
+
+    public void releaseBuf() {
         if (packetBuffer != null) {
-            newBuf.writeBytes(packetBuffer);
             packetBuffer.release();
+            packetBuffer = null;
         }
-        packetBuffer = newBuf;
+        releaseChunkStreams();
     }
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) {
-        if (packetBuffer != null) {
-            packetBuffer.release();
-        }
-        packetBuffer = ctx.alloc().buffer(32);
+        releaseBuf();
     }
 
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) {
         BungeeBridge.runOnMainThread(() -> Debug.log("Depenizen-Bungee connection ended. If this is unexpected, check your Bungee proxy server logs."));
-        packetBuffer.release();
-        packetBuffer = null;
+        releaseBuf();
         BungeeBridge.instance.connected = false;
         BungeeBridge.instance.reconnect(true);
     }
@@ -91,17 +157,49 @@ public class BungeeClientHandler extends ChannelInboundHandlerAdapter {
             Debug.log("Depenizen now connected to Bungee server.");
             BungeeBridge.instance.lastPacketReceived = CoreUtilities.monotonicMillis();
             BungeeBridge.instance.sendPacket(new MyInfoPacketOut(Bukkit.getPort()));
-            BungeeBridge.instance.sendPacket(new ControlsProxyPingPacketOut(BungeeBridge.instance.controlsProxyPing));
+            BungeeBridge.instance.sendPacket(new ControlsProxyPingPacketOut(BungeeBridge.instance.shouldControlProxyPing()));
             BungeeBridge.instance.sendPacket(new ControlsProxyCommandPacketOut(BungeeBridge.instance.controlsProxyCommand));
         }, 30);
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            BungeeBridge.runOnMainThread(() -> BungeeBridge.instance.replayOfflineQueue(false));
+        }
+        else {
+            BungeeBridge.instance.backpressureEvents.incrementAndGet();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         ByteBuf m = (ByteBuf) msg;
-        packetBuffer.writeBytes(m);
-        m.release();
-        while (true) {
+        if (packetBuffer == null) {
+            packetBuffer = m;
+        }
+        else {
+            // Only copies when the incoming data doesn't fit in the existing buffer, and then only the unread part
+            packetBuffer = ByteToMessageDecoder.MERGE_CUMULATOR.cumulate(ctx.alloc(), packetBuffer, m);
+        }
+        try {
+            readPackets();
+        }
+        finally {
+            if (packetBuffer != null) {
+                if (!packetBuffer.isReadable()) {
+                    releaseBuf();
+                }
+                else {
+                    packetBuffer.discardSomeReadBytes();
+                }
+            }
+        }
+    }
+
+    public void readPackets() {
+        while (packetBuffer != null) {
             if (currentStage == Stage.AWAIT_HEADER) {
                 if (packetBuffer.readableBytes() < 8) {
                     return;
@@ -113,7 +211,9 @@ public class BungeeClientHandler extends ChannelInboundHandlerAdapter {
                     fail("Invalid packet id: " + packetId);
                     return;
                 }
-                if (waitingLength < 0 || waitingLength > (1024 * 1024 * 1024)) {
+                // Once chunked transfer is available, nothing should need a frame larger than a chunk
+                int maxLength = BungeeBridge.instance.proxySupports(BungeeBridge.FEATURE_CHUNKED) ? MAX_CHUNKED_MODE_FRAME : (1024 * 1024 * 1024);
+                if (waitingLength < 0 || waitingLength > maxLength) {
                     BungeeBridge.instance.handler.fail("Invalid/impossible packet header length value (bytes expected: " + waitingLength + ", bytes readable: " + packetBuffer.readableBytes() + ")");
                     return;
                 }
@@ -125,9 +225,15 @@ public class BungeeClientHandler extends ChannelInboundHandlerAdapter {
                 try {
                     BungeeBridge.instance.lastPacketReceived = CoreUtilities.monotonicMillis();
                     BungeePacketIn packet = BungeeBridge.instance.packets.get(packetId);
-                    packet.process(packetBuffer);
+                    BungeeInbox inbox = BungeeBridge.instance.inbox;
+                    inbox.processingThread = Thread.currentThread();
+                    inbox.processingPacketId = packetId;
+                    long start = System.nanoTime();
+                    // The slice shares memory with the cumulation buffer, and limits the packet to reading only its own data
+                    packet.process(packetBuffer.readSlice(waitingLength));
+                    BungeeBridge.instance.stats.received(packetId, waitingLength + 8, System.nanoTime() - start);
+                    inbox.processingPacketId = -1;
                     currentStage = Stage.AWAIT_HEADER;
-                    reallocateBuf(ctx);
                     lastPacket = packet;
                 }
                 catch (Throwable ex) {
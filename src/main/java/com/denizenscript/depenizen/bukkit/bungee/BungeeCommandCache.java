@@ -0,0 +1,108 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunCachedCommandsPacketOut;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Lets the 'bungee' command send a braced block by its content hash once the remote server has already compiled it.
+ * The sending side remembers which blocks each server was sent, the receiving side keeps the parsed command lines.
+ * Only used on the main thread.
+ */
+public class BungeeCommandCache {
+
+    public record Key(long high, long low) {
+    }
+
+    public record Block(Key key, String commands) {
+    }
+
+    public record PendingRun(String server, RunCachedCommandsPacketOut packet, String commands) {
+    }
+
+    /**
+     * Whether the 'bungee' command sends blocks by hash. Every server on the network must support it.
+     */
+    public boolean enabled = false;
+
+    public int maxSize = 500;
+
+    public long hits = 0;
+
+    public long misses = 0;
+
+    public long compiles = 0;
+
+    // Receiving side: parsed command lines, built into fresh entries for each run exactly as an uncached 'bungee' block is
+
+    public final LinkedHashMap<Key, List<Object>> compiled = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<Object>> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    // Sending side: the stringified block for each braced command, and which servers were already sent each one
+
+    public final WeakHashMap<Object, Block> blocks = new WeakHashMap<>();
+
+    public final HashMap<String, Set<Key>> sentTo = new HashMap<>();
+
+    public final LinkedHashMap<Integer, PendingRun> recentRuns = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, PendingRun> eldest) {
+            return size() > 1000;
+        }
+    };
+
+    public int nextRequestId = 1;
+
+    public static Key hash(String commands, boolean shouldDebug) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((byte) (shouldDebug ? 1 : 0));
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(commands.getBytes(StandardCharsets.UTF_8)));
+            return new Key(hash.getLong(), hash.getLong());
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns true if the server should already have the block compiled, and marks it as sent otherwise.
+     */
+    public boolean markSent(String server, Key key) {
+        Set<Key> keys = sentTo.computeIfAbsent(CoreUtilities.toLowerCase(server), k -> new HashSet<>());
+        if (keys.contains(key)) {
+            return true;
+        }
+        if (keys.size() >= maxSize) {
+            // The remote server's cache will have evicted some of these by now anyway
+            keys.clear();
+        }
+        keys.add(key);
+        return false;
+    }
+
+    public void handleMiss(int requestId) {
+        PendingRun run = recentRuns.remove(requestId);
+        if (run == null) {
+            return;
+        }
+        run.packet.commands = run.commands;
+        markSent(run.server, run.packet.key);
+        BungeeBridge.instance.sendPacket(new RedirectPacketOut(run.server, run.packet));
+    }
+
+    public void clearSent() {
+        sentTo.clear();
+        recentRuns.clear();
+    }
+}
@@ -0,0 +1,119 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import com.denizenscript.denizencore.utilities.debugging.Debug;
+import com.denizenscript.depenizen.bukkit.Depenizen;
+import org.bukkit.Bukkit;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects main-thread work from the Netty thread, to be run in batches by a single repeating task rather than one scheduler task per packet.
+ */
+public class BungeeInbox {
+
+    public record Task(Runnable runnable, long queuedAt, int packetId) {
+    }
+
+    public BungeeInbox(BungeePacketStats stats) {
+        this.stats = stats;
+    }
+
+    public final BungeePacketStats stats;
+
+    /**
+     * The id of the packet being processed on the Netty thread, so main-thread work it queues can be attributed to it. -1 otherwise.
+     */
+    public int processingPacketId = -1;
+
+    public Thread processingThread;
+
+    public final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+
+    // ConcurrentLinkedQueue.size() is linear, so the size is tracked separately
+    public final AtomicInteger size = new AtomicInteger();
+
+    public long tickBudgetNanos = 5_000_000;
+
+    public long lastDrainMaxLatencyNanos = 0;
+
+    public int lastDrainCount = 0;
+
+    public void add(Runnable runnable) {
+        int packetId = Thread.currentThread() == processingThread ? processingPacketId : -1;
+        tasks.add(new Task(runnable, System.nanoTime(), packetId));
+        size.incrementAndGet();
+    }
+
+    public final Queue<Task> urgentTasks = new ConcurrentLinkedQueue<>();
+
+    public volatile boolean draining = false;
+
+    /**
+     * Adds a task that a held queue is waiting on, like a 'bungeerun' or 'bungeetag' response.
+     * If the main thread is in the middle of a drain it's run as part of that, otherwise a task is scheduled that runs at the start of the next tick, before script queues are resumed, rather than waiting for the next drain.
+     */
+    public void addUrgent(Runnable runnable) {
+        int packetId = Thread.currentThread() == processingThread ? processingPacketId : -1;
+        urgentTasks.add(new Task(runnable, System.nanoTime(), packetId));
+        // Paired with drain() clearing the flag before checking the urgent queue again, so a task is never left waiting
+        if (!draining && Depenizen.instance.isEnabled()) {
+            Bukkit.getScheduler().runTask(Depenizen.instance, this::runUrgent);
+        }
+    }
+
+    /**
+     * Must be called on the main thread.
+     */
+    public void runUrgent() {
+        Task task;
+        while ((task = urgentTasks.poll()) != null) {
+            run(task, System.nanoTime());
+        }
+    }
+
+    public void run(Task task, long now) {
+        try {
+            task.runnable.run();
+        }
+        catch (Throwable ex) {
+            Debug.echoError(ex);
+        }
+        if (task.packetId != -1) {
+            stats.handled(task.packetId, System.nanoTime() - now);
+        }
+    }
+
+    /**
+     * Runs queued tasks until the queue is empty or the tick budget is used up. Anything left over is run next tick.
+     * Must be called on the main thread.
+     */
+    public void drain() {
+        long start = System.nanoTime();
+        long maxLatency = 0;
+        int count = 0;
+        draining = true;
+        try {
+            runUrgent();
+            Task task;
+            while ((task = tasks.poll()) != null) {
+                size.decrementAndGet();
+                long now = System.nanoTime();
+                maxLatency = Math.max(maxLatency, now - task.queuedAt);
+                run(task, now);
+                count++;
+                if (System.nanoTime() - start >= tickBudgetNanos) {
+                    break;
+                }
+            }
+        }
+        finally {
+            draining = false;
+        }
+        // Urgent tasks added while draining didn't schedule their own run
+        runUrgent();
+        lastDrainMaxLatencyNanos = maxLatency;
+        lastDrainCount = count;
+    }
+}
@@ -0,0 +1,56 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent keepalive round trip times to the proxy. Samples are added from the Netty thread.
+ */
+public class BungeeLatencyTracker {
+
+    public static final int SAMPLE_COUNT = 100;
+
+    public record Summary(long minNanos, long avgNanos, long p99Nanos, int samples) {
+    }
+
+    private final long[] samples = new long[SAMPLE_COUNT];
+
+    private int count = 0;
+
+    private int next = 0;
+
+    public synchronized void addSample(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        samples[next] = nanos;
+        next = (next + 1) % SAMPLE_COUNT;
+        if (count < SAMPLE_COUNT) {
+            count++;
+        }
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        next = 0;
+    }
+
+    /**
+     * Returns null if there are no samples yet.
+     */
+    public Summary summarize() {
+        long[] data;
+        synchronized (this) {
+            if (count == 0) {
+                return null;
+            }
+            data = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(data);
+        long total = 0;
+        for (long sample : data) {
+            total += sample;
+        }
+        int p99Index = Math.min(data.length - 1, (int) Math.ceil(data.length * 0.99) - 1);
+        return new Summary(data[0], total / data.length, data[p99Index], data.length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds packets sent while the proxy connection is down or backed up, to be replayed in order once it's back.
+ */
+public class BungeeOfflineQueue {
+
+    /**
+     * Zero disables queueing, so everything sent while disconnected is dropped.
+     */
+    public int maxSize = 1000;
+
+    /**
+     * Packets dropped while disconnected. Drops while backed up are counted by {@link BungeeBridge#backpressureDropped} instead.
+     */
+    public final AtomicLong dropped = new AtomicLong();
+
+    private final ArrayDeque<BungeePacketOut> packets = new ArrayDeque<>();
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Queues a packet sent while disconnected, following its {@link BungeePacketOut#getOfflinePolicy()}. Returns false if the packet was dropped instead.
+     */
+    public boolean offer(BungeePacketOut packet) {
+        if (packet.getOfflinePolicy() == BungeePacketOut.OfflinePolicy.DROP || !add(packet)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queues a packet sent while the connection is backed up, which has already been checked against {@link BungeePacketOut#getBackpressurePolicy()}.
+     * Returns false if the queue is full, the caller counts the drop.
+     */
+    public boolean offerBackedUp(BungeePacketOut packet) {
+        return add(packet);
+    }
+
+    private synchronized boolean add(BungeePacketOut packet) {
+        if (packet.getOfflinePolicy() == BungeePacketOut.OfflinePolicy.COALESCE) {
+            Object key = packet.getCoalesceKey();
+            packets.removeIf(queued -> queued.getOfflinePolicy() == BungeePacketOut.OfflinePolicy.COALESCE && key.equals(queued.getCoalesceKey()));
+        }
+        if (packets.size() >= maxSize) {
+            return false;
+        }
+        packets.add(packet);
+        return true;
+    }
+
+    public synchronized BungeePacketOut poll() {
+        return packets.poll();
+    }
+
+    public synchronized int size() {
+        return packets.size();
+    }
+}
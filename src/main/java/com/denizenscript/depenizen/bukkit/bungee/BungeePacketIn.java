@@ -1,11 +1,128 @@
 package com.denizenscript.depenizen.bukkit.bungee;
 
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.ListTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.depenizen.bukkit.bungee.packets.in.RunCommandsPacketIn;
 import com.denizenscript.depenizen.bukkit.networking.PacketIn;
+import io.netty.buffer.ByteBuf;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public abstract class BungeePacketIn extends PacketIn {
 
+    public static final int MAX_DEFINITION_DEPTH = 64;
+
     @Override
     public void fail(String reason) {
         BungeeBridge.instance.handler.fail(reason);
     }
+
+    /**
+     * Reads a set of definitions written by {@link BungeePacketOut#writeDefinitions(ByteBuf, Map)}, in either format.
+     * Returns null if the data is invalid.
+     */
+    public Map<String, ObjectTag> readDefinitions(ByteBuf buf) {
+        if (buf.readableBytes() < 4) {
+            fail("Invalid " + getName() + " Packet definitions (bytes available: " + buf.readableBytes() + ")");
+            return null;
+        }
+        Map<String, ObjectTag> result = new LinkedHashMap<>();
+        if (buf.getInt(buf.readerIndex()) != BungeePacketOut.DEFINITIONS_BINARY_MARKER) {
+            String defs = readString(buf, "defs");
+            if (defs == null) {
+                return null;
+            }
+            List<String> defSets = CoreUtilities.split(defs, '\r');
+            List<String> defNames = CoreUtilities.split(defSets.get(0), '\n');
+            List<String> defValues = CoreUtilities.split(defSets.get(1), '\n');
+            for (int i = 0; i < defNames.size(); i++) {
+                String name = RunCommandsPacketIn.unescape(defNames.get(i));
+                if (name.length() > 0) {
+                    result.put(name, new ElementTag(RunCommandsPacketIn.unescape(defValues.get(i))));
+                }
+            }
+            return result;
+        }
+        buf.readInt();
+        if (buf.readableBytes() < 1 + 4) {
+            fail("Invalid " + getName() + " Packet binary definitions header (bytes available: " + buf.readableBytes() + ")");
+            return null;
+        }
+        byte version = buf.readByte();
+        if (version != BungeePacketOut.DEFINITIONS_FORMAT_VERSION) {
+            fail("Unsupported " + getName() + " Packet definitions format version: " + version);
+            return null;
+        }
+        int count = buf.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = readString(buf, "definition name");
+            if (name == null) {
+                return null;
+            }
+            ObjectTag value = readDefinitionValue(buf, 0);
+            if (value == null) {
+                return null;
+            }
+            result.put(name, value);
+        }
+        return result;
+    }
+
+    public ObjectTag readDefinitionValue(ByteBuf buf, int depth) {
+        if (depth > MAX_DEFINITION_DEPTH || buf.readableBytes() < 1) {
+            fail("Invalid " + getName() + " Packet definition value (depth: " + depth + ", bytes available: " + buf.readableBytes() + ")");
+            return null;
+        }
+        byte type = buf.readByte();
+        switch (type) {
+            case BungeePacketOut.DEFINITION_TYPE_ELEMENT: {
+                String value = readString(buf, "definition value");
+                return value == null ? null : new ElementTag(value);
+            }
+            case BungeePacketOut.DEFINITION_TYPE_LIST: {
+                if (buf.readableBytes() < 4) {
+                    fail("Invalid " + getName() + " Packet list definition size");
+                    return null;
+                }
+                int size = buf.readInt();
+                ListTag list = new ListTag();
+                for (int i = 0; i < size; i++) {
+                    ObjectTag entry = readDefinitionValue(buf, depth + 1);
+                    if (entry == null) {
+                        return null;
+                    }
+                    list.addObject(entry);
+                }
+                return list;
+            }
+            case BungeePacketOut.DEFINITION_TYPE_MAP: {
+                if (buf.readableBytes() < 4) {
+                    fail("Invalid " + getName() + " Packet map definition size");
+                    return null;
+                }
+                int size = buf.readInt();
+                MapTag map = new MapTag();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buf, "map definition key");
+                    if (key == null) {
+                        return null;
+                    }
+                    ObjectTag entry = readDefinitionValue(buf, depth + 1);
+                    if (entry == null) {
+                        return null;
+                    }
+                    map.putObject(key, entry);
+                }
+                return map;
+            }
+            default:
+                fail("Invalid " + getName() + " Packet definition value type: " + type);
+                return null;
+        }
+    }
 }
@@ -1,11 +1,121 @@
 package com.denizenscript.depenizen.bukkit.bungee;
 
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.ListTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.utilities.text.StringHolder;
+import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeCommand;
 import com.denizenscript.depenizen.bukkit.networking.PacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Map;
 
 public abstract class BungeePacketOut extends PacketOut {
 
+    public static final int DEFINITIONS_BINARY_MARKER = -1;
+
+    public static final byte DEFINITIONS_FORMAT_VERSION = 1;
+
+    public static final byte DEFINITION_TYPE_ELEMENT = 0, DEFINITION_TYPE_LIST = 1, DEFINITION_TYPE_MAP = 2;
+
     public boolean canBeFirstPacket = false;
 
+    public enum OfflinePolicy {
+        /**
+         * The packet is only meaningful right now, so it's dropped if it can't be sent.
+         */
+        DROP,
+        /**
+         * Only the latest queued packet with the same coalesce key is kept.
+         */
+        COALESCE,
+        /**
+         * Every packet is queued and replayed in order.
+         */
+        KEEP
+    }
+
+    /**
+     * What to do with this packet if it can't be sent right away, because the proxy connection is down or backed up. See {@link BungeeOfflineQueue}.
+     */
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.DROP;
+    }
+
+    public enum BackpressurePolicy {
+        /**
+         * The packet is held in the queue until the proxy catches up.
+         */
+        QUEUE,
+        /**
+         * The packet is dropped while the proxy isn't keeping up.
+         */
+        DROP,
+        /**
+         * The packet is written anyway, for small packets the proxy is waiting on.
+         */
+        SEND
+    }
+
+    /**
+     * What to do with this packet while the proxy connection is backed up, see {@link BungeeBridge#sendPacket(BungeePacketOut)}.
+     * Can be overridden per packet class by the "Bungee.backpressure policies" config option, except for keepalives, which are always sent.
+     */
+    public BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.QUEUE;
+    }
+
+    public Object getCoalesceKey() {
+        return getClass();
+    }
+
     public abstract int getPacketId();
 
+    /**
+     * Writes a set of definitions, in the binary format if enabled in the config and the proxy supports it, otherwise in the legacy escaped string format.
+     * The receiving server decodes these, not the proxy, so the binary format is opt-in until every server on the network can read it.
+     * Read back with {@link BungeePacketIn#readDefinitions(ByteBuf)}.
+     */
+    public void writeDefinitions(ByteBuf buf, Map<String, ObjectTag> defs) {
+        if (!BungeeBridge.instance.binaryDefinitions || !BungeeBridge.instance.proxySupports(BungeeBridge.FEATURE_BINARY_DEFINITIONS)) {
+            StringBuilder defNames = new StringBuilder();
+            StringBuilder defValues = new StringBuilder();
+            for (Map.Entry<String, ObjectTag> def : defs.entrySet()) {
+                defNames.append(BungeeCommand.escape(def.getKey())).append("\n");
+                defValues.append(BungeeCommand.escape(def.getValue().toString())).append("\n");
+            }
+            writeString(buf, defNames + "\r" + defValues);
+            return;
+        }
+        // The marker takes the place of the legacy format's string length, which can never be negative
+        buf.writeInt(DEFINITIONS_BINARY_MARKER);
+        buf.writeByte(DEFINITIONS_FORMAT_VERSION);
+        buf.writeInt(defs.size());
+        for (Map.Entry<String, ObjectTag> def : defs.entrySet()) {
+            writeString(buf, def.getKey());
+            writeDefinitionValue(buf, def.getValue());
+        }
+    }
+
+    public void writeDefinitionValue(ByteBuf buf, ObjectTag value) {
+        if (value instanceof ListTag list) {
+            buf.writeByte(DEFINITION_TYPE_LIST);
+            buf.writeInt(list.size());
+            for (ObjectTag entry : list.objectForms) {
+                writeDefinitionValue(buf, entry);
+            }
+        }
+        else if (value instanceof MapTag map) {
+            buf.writeByte(DEFINITION_TYPE_MAP);
+            buf.writeInt(map.size());
+            for (Map.Entry<StringHolder, ObjectTag> entry : map.entrySet()) {
+                writeString(buf, entry.getKey().str);
+                writeDefinitionValue(buf, entry.getValue());
+            }
+        }
+        else {
+            buf.writeByte(DEFINITION_TYPE_ELEMENT);
+            writeString(buf, value.toString());
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import com.denizenscript.denizencore.objects.core.DurationTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-packet-id traffic counters. Written from both the Netty thread and the main thread, so every counter is atomic.
+ */
+public class BungeePacketStats {
+
+    public static final int MAX_PACKET_ID = 256;
+
+    public final AtomicLongArray packetsIn = new AtomicLongArray(MAX_PACKET_ID);
+
+    public final AtomicLongArray bytesIn = new AtomicLongArray(MAX_PACKET_ID);
+
+    public final AtomicLongArray decodeNanos = new AtomicLongArray(MAX_PACKET_ID);
+
+    public final AtomicLongArray handlerNanos = new AtomicLongArray(MAX_PACKET_ID);
+
+    public final AtomicLongArray packetsOut = new AtomicLongArray(MAX_PACKET_ID);
+
+    public final AtomicLongArray bytesOut = new AtomicLongArray(MAX_PACKET_ID);
+
+    public volatile long since = CoreUtilities.monotonicMillis();
+
+    public static boolean isTracked(int id) {
+        return id >= 0 && id < MAX_PACKET_ID;
+    }
+
+    public void received(int id, int bytes, long nanos) {
+        if (isTracked(id)) {
+            packetsIn.incrementAndGet(id);
+            bytesIn.addAndGet(id, bytes);
+            decodeNanos.addAndGet(id, nanos);
+        }
+    }
+
+    public void handled(int id, long nanos) {
+        if (isTracked(id)) {
+            handlerNanos.addAndGet(id, nanos);
+        }
+    }
+
+    public void sent(int id, int bytes) {
+        if (isTracked(id)) {
+            packetsOut.incrementAndGet(id);
+            bytesOut.addAndGet(id, bytes);
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < MAX_PACKET_ID; i++) {
+            packetsIn.set(i, 0);
+            bytesIn.set(i, 0);
+            decodeNanos.set(i, 0);
+            handlerNanos.set(i, 0);
+            packetsOut.set(i, 0);
+            bytesOut.set(i, 0);
+        }
+        since = CoreUtilities.monotonicMillis();
+    }
+
+    public MapTag toMap() {
+        MapTag in = new MapTag();
+        MapTag out = new MapTag();
+        for (int i = 0; i < MAX_PACKET_ID; i++) {
+            long received = packetsIn.get(i);
+            if (received > 0) {
+                MapTag entry = new MapTag();
+                BungeePacketIn packet = BungeeBridge.instance.packets.get(i);
+                if (packet != null) {
+                    entry.putObject("name", new ElementTag(packet.getName()));
+                }
+                entry.putObject("packets", new ElementTag(received));
+                entry.putObject("bytes", new ElementTag(bytesIn.get(i)));
+                entry.putObject("decode_time", new DurationTag(decodeNanos.get(i) / 1_000_000_000.0));
+                entry.putObject("handler_time", new DurationTag(handlerNanos.get(i) / 1_000_000_000.0));
+                in.putObject(String.valueOf(i), entry);
+            }
+            long sent = packetsOut.get(i);
+            if (sent > 0) {
+                MapTag entry = new MapTag();
+                entry.putObject("packets", new ElementTag(sent));
+                entry.putObject("bytes", new ElementTag(bytesOut.get(i)));
+                out.putObject(String.valueOf(i), entry);
+            }
+        }
+        MapTag result = new MapTag();
+        result.putObject("in", in);
+        result.putObject("out", out);
+        result.putObject("duration", new DurationTag((CoreUtilities.monotonicMillis() - since) / 1000.0));
+        return result;
+    }
+
+    /**
+     * A one-line summary for the console: totals for each direction, and the busiest inbound packet by time spent.
+     */
+    public String summarize() {
+        long inPackets = 0, inBytes = 0, inNanos = 0, outPackets = 0, outBytes = 0;
+        int busiest = -1;
+        long busiestNanos = 0;
+        for (int i = 0; i < MAX_PACKET_ID; i++) {
+            inPackets += packetsIn.get(i);
+            inBytes += bytesIn.get(i);
+            long nanos = decodeNanos.get(i) + handlerNanos.get(i);
+            inNanos += nanos;
+            if (nanos > busiestNanos) {
+                busiest = i;
+                busiestNanos = nanos;
+            }
+            outPackets += packetsOut.get(i);
+            outBytes += bytesOut.get(i);
+        }
+        String result = "in " + inPackets + " packets / " + inBytes + " bytes (" + (inNanos / 1_000_000) + "ms handling), out " + outPackets + " packets / " + outBytes + " bytes";
+        if (busiest != -1) {
+            BungeePacketIn packet = BungeeBridge.instance.packets.get(busiest);
+            result += ", busiest: " + (packet == null ? String.valueOf(busiest) : packet.getName()) + " (" + (busiestNanos / 1_000_000) + "ms)";
+        }
+        return result;
+    }
+}
@@ -0,0 +1,177 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import com.denizenscript.denizen.objects.PlayerTag;
+import com.denizenscript.depenizen.bukkit.Depenizen;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the player UUIDs in Bungee packets and events to PlayerTags, without looking up unknown players on the main thread.
+ * Players are resolved ahead of time off the main thread when the proxy reports them joining, and when they join this server.
+ * On startup, the most recent players who have played on this server are resolved in the background, see {@link #prefill()}.
+ */
+public class BungeePlayerResolver implements Listener {
+
+    public enum UnknownPlayerPolicy {
+        /**
+         * Players that aren't resolved yet are treated as no player, and resolved in the background for next time.
+         * Players who played here recently are already resolved by {@link #prefill()}, so this mostly affects players who never joined this server, who would only be linked to a barely usable offline player anyway.
+         */
+        NONE,
+        /**
+         * Players that aren't resolved yet are looked up immediately on the main thread, which may read from disk.
+         */
+        LOOKUP
+    }
+
+    public record Resolved(PlayerTag player, boolean playedHere) {
+    }
+
+    public UnknownPlayerPolicy unknownPolicy = UnknownPlayerPolicy.NONE;
+
+    public int maxSize = 2000;
+
+    public long hits = 0;
+
+    public long misses = 0;
+
+    private final LinkedHashMap<UUID, Resolved> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Resolved> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+    public synchronized Resolved getCached(UUID uuid) {
+        return cache.get(uuid);
+    }
+
+    public synchronized void put(UUID uuid, Resolved resolved) {
+        cache.put(uuid, resolved);
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the linked player for a packet, or null for none. Must be called on the main thread.
+     */
+    public PlayerTag resolve(UUID uuid) {
+        Resolved resolved = resolveFull(uuid);
+        return resolved == null ? null : resolved.player;
+    }
+
+    /**
+     * Like {@link #resolve(UUID)}, but only returns players that are online or have played on this server before.
+     */
+    public PlayerTag resolveLocal(UUID uuid) {
+        Resolved resolved = resolveFull(uuid);
+        return resolved == null || !resolved.playedHere ? null : resolved.player;
+    }
+
+    public Resolved resolveFull(UUID uuid) {
+        if (uuid == null || (uuid.getMostSignificantBits() == 0 && uuid.getLeastSignificantBits() == 0)) {
+            return null;
+        }
+        Resolved resolved = getCached(uuid);
+        if (resolved != null) {
+            hits++;
+            return resolved;
+        }
+        misses++;
+        Player online = Bukkit.getPlayer(uuid);
+        if (online != null) {
+            resolved = new Resolved(new PlayerTag(online), true);
+            put(uuid, resolved);
+            return resolved;
+        }
+        if (unknownPolicy == UnknownPlayerPolicy.LOOKUP) {
+            resolved = lookup(uuid);
+            if (resolved != null) {
+                put(uuid, resolved);
+            }
+            return resolved;
+        }
+        prefetch(Collections.singleton(uuid));
+        return null;
+    }
+
+    public static Resolved lookup(UUID uuid) {
+        try {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+            return new Resolved(new PlayerTag(player), player.isOnline() || player.hasPlayedBefore());
+        }
+        catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the given players in the background, if not already known. Safe to call from any thread.
+     */
+    public void prefetch(Collection<UUID> uuids) {
+        List<UUID> toResolve = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            if (getCached(uuid) == null && pending.add(uuid)) {
+                toResolve.add(uuid);
+            }
+        }
+        if (toResolve.isEmpty()) {
+            return;
+        }
+        if (!Depenizen.instance.isEnabled()) {
+            pending.removeAll(toResolve);
+            return;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(Depenizen.instance, () -> {
+            for (UUID uuid : toResolve) {
+                try {
+                    Resolved resolved = lookup(uuid);
+                    if (resolved != null) {
+                        put(uuid, resolved);
+                    }
+                }
+                finally {
+                    pending.remove(uuid);
+                }
+            }
+        });
+    }
+
+    /**
+     * Resolves the players that most recently played on this server in the background, up to the cache size, so events for them have a linked player right after a restart.
+     */
+    public void prefill() {
+        Bukkit.getScheduler().runTaskAsynchronously(Depenizen.instance, () -> {
+            List<OfflinePlayer> players = new ArrayList<>(Arrays.asList(Bukkit.getOfflinePlayers()));
+            players.sort(Comparator.comparingLong(OfflinePlayer::getLastPlayed).reversed());
+            if (players.size() > maxSize) {
+                players = players.subList(0, maxSize);
+            }
+            // Added least recent first, so the most recent players are the last to be evicted
+            for (int i = players.size() - 1; i >= 0; i--) {
+                OfflinePlayer player = players.get(i);
+                synchronized (this) {
+                    // Anything resolved in the meantime (like a player joining) is more up to date
+                    cache.putIfAbsent(player.getUniqueId(), new Resolved(new PlayerTag(player), true));
+                }
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        put(event.getPlayer().getUniqueId(), new Resolved(new PlayerTag(event.getPlayer()), true));
+    }
+}
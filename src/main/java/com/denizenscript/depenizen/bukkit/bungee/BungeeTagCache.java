@@ -0,0 +1,61 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Short-lived cache of 'bungeetag' results, for scripts that opt in with the 'cache:' argument.
+ * Only used on the main thread.
+ */
+public class BungeeTagCache {
+
+    public record Key(String server, String tag, UUID player) {
+    }
+
+    public record Entry(String result, long expiresAt) {
+    }
+
+    public int maxSize = 1000;
+
+    public long hits = 0;
+
+    public long misses = 0;
+
+    // Access-ordered, so the least recently used entry is evicted first once full
+    public final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public static Key key(String server, String tag, UUID player) {
+        return new Key(CoreUtilities.toLowerCase(server), tag, player);
+    }
+
+    public String get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (CoreUtilities.monotonicMillis() >= entry.expiresAt) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.result;
+    }
+
+    public void put(Key key, String result, long durationMillis) {
+        entries.put(key, new Entry(result, CoreUtilities.monotonicMillis() + durationMillis));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which backend server every player on the network is connected to, as reported by the proxy.
+ * Updated from the Netty thread as packets arrive, and safe to read from any thread.
+ */
+public class NetworkPlayerDirectory {
+
+    /**
+     * Server is null while a player is still connecting to their first server.
+     */
+    public record Entry(UUID uuid, String name, String server) {
+    }
+
+    public final ConcurrentHashMap<UUID, Entry> players = new ConcurrentHashMap<>();
+
+    // Keyed by lowercased server name
+    public final ConcurrentHashMap<String, Set<UUID>> serverPlayers = new ConcurrentHashMap<>();
+
+    // Keyed by lowercased player name
+    public final ConcurrentHashMap<String, UUID> playersByName = new ConcurrentHashMap<>();
+
+    public void join(UUID uuid, String name) {
+        update(uuid, name, null);
+    }
+
+    public void update(UUID uuid, String name, String server) {
+        Entry previous = players.put(uuid, new Entry(uuid, name, server));
+        if (previous != null) {
+            removeFromServer(previous);
+            if (!previous.name.equals(name)) {
+                playersByName.remove(CoreUtilities.toLowerCase(previous.name), uuid);
+            }
+        }
+        playersByName.put(CoreUtilities.toLowerCase(name), uuid);
+        if (server != null) {
+            serverPlayers.computeIfAbsent(CoreUtilities.toLowerCase(server), k -> ConcurrentHashMap.newKeySet()).add(uuid);
+        }
+    }
+
+    public void quit(UUID uuid) {
+        Entry previous = players.remove(uuid);
+        if (previous != null) {
+            removeFromServer(previous);
+            playersByName.remove(CoreUtilities.toLowerCase(previous.name), uuid);
+        }
+    }
+
+    private void removeFromServer(Entry entry) {
+        if (entry.server == null) {
+            return;
+        }
+        Set<UUID> set = serverPlayers.get(CoreUtilities.toLowerCase(entry.server));
+        if (set != null) {
+            set.remove(entry.uuid);
+        }
+    }
+
+    public void replaceAll(Map<UUID, Entry> snapshot) {
+        clear();
+        for (Entry entry : snapshot.values()) {
+            update(entry.uuid, entry.name, entry.server);
+        }
+    }
+
+    public void clear() {
+        players.clear();
+        serverPlayers.clear();
+        playersByName.clear();
+    }
+
+    public Entry get(UUID uuid) {
+        return players.get(uuid);
+    }
+
+    public Entry getByName(String name) {
+        UUID uuid = playersByName.get(CoreUtilities.toLowerCase(name));
+        return uuid == null ? null : players.get(uuid);
+    }
+
+    public Set<UUID> getServerPlayers(String server) {
+        Set<UUID> set = serverPlayers.get(CoreUtilities.toLowerCase(server));
+        return set == null ? Collections.emptySet() : set;
+    }
+}
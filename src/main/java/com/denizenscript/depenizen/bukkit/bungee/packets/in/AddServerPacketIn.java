@@ -1,11 +1,9 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeeServerConnectScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 public class AddServerPacketIn extends BungeePacketIn {
 
@@ -20,7 +18,7 @@ public class AddServerPacketIn extends BungeePacketIn {
         if (serverName == null) {
             return;
         }
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeBridge.runOnMainThread(() -> {
             BungeeBridge.instance.knownServers.add(serverName);
             BungeeServerConnectScriptEvent.instance.serverName = serverName;
             BungeeServerConnectScriptEvent.instance.fire();
@@ -0,0 +1,26 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import io.netty.buffer.ByteBuf;
+
+public class ChunkPacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "Chunk";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4 + 4 + 4 + 4) {
+            BungeeBridge.instance.handler.fail("Invalid ChunkPacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        int streamId = data.readInt();
+        int packetId = data.readInt();
+        int totalLength = data.readInt();
+        int offset = data.readInt();
+        BungeeBridge.instance.handler.receiveChunk(streamId, packetId, totalLength, offset, data);
+    }
+}
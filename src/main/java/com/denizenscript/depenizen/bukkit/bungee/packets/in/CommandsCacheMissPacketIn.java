@@ -0,0 +1,23 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import io.netty.buffer.ByteBuf;
+
+public class CommandsCacheMissPacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "CommandsCacheMiss";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4) {
+            BungeeBridge.instance.handler.fail("Invalid CommandsCacheMissPacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        int requestId = data.readInt();
+        BungeeBridge.runOnMainThread(() -> BungeeBridge.instance.commandCache.handleMiss(requestId));
+    }
+}
@@ -1,5 +1,6 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import io.netty.buffer.ByteBuf;
 
@@ -12,6 +13,9 @@ public class KeepAlivePacketIn extends BungeePacketIn {
 
     @Override
     public void process(ByteBuf data) {
-        // Do nothing, no data is included
+        // Older proxies send no data, newer ones echo the timestamp from our keepalive
+        if (data.readableBytes() >= 8) {
+            BungeeBridge.instance.latency.addSample(System.nanoTime() - data.readLong());
+        }
     }
 }
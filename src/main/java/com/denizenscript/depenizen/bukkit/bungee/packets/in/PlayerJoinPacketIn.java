@@ -1,12 +1,11 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeePlayerJoinsScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
+import java.util.Collections;
 import java.util.UUID;
 
 public class PlayerJoinPacketIn extends BungeePacketIn {
@@ -31,7 +30,9 @@ public class PlayerJoinPacketIn extends BungeePacketIn {
         if (name == null || ip == null) {
             return;
         }
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeBridge.instance.playerDirectory.join(uuid, name);
+        BungeeBridge.instance.playerResolver.prefetch(Collections.singleton(uuid));
+        BungeeBridge.runOnMainThread(() -> {
             BungeePlayerJoinsScriptEvent.instance.name = name;
             BungeePlayerJoinsScriptEvent.instance.uuid = uuid;
             BungeePlayerJoinsScriptEvent.instance.ip = ip;
@@ -0,0 +1,44 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.bungee.NetworkPlayerDirectory;
+import io.netty.buffer.ByteBuf;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+public class PlayerListPacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "PlayerList";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4) {
+            BungeeBridge.instance.handler.fail("Invalid PlayerListPacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        int count = data.readInt();
+        HashMap<UUID, NetworkPlayerDirectory.Entry> snapshot = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (data.readableBytes() < 16) {
+                BungeeBridge.instance.handler.fail("Invalid PlayerListPacket (bytes available: " + data.readableBytes() + ")");
+                return;
+            }
+            long mostSigBits = data.readLong();
+            long leastSigBits = data.readLong();
+            UUID uuid = new UUID(mostSigBits, leastSigBits);
+            String name = readString(data, "name");
+            String serverName = readString(data, "serverName");
+            if (name == null || serverName == null) {
+                return;
+            }
+            snapshot.put(uuid, new NetworkPlayerDirectory.Entry(uuid, name, serverName.isEmpty() ? null : serverName));
+        }
+        BungeeBridge.instance.playerDirectory.replaceAll(snapshot);
+        BungeeBridge.instance.playerResolver.prefetch(snapshot.keySet());
+    }
+}
@@ -1,11 +1,9 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeePlayerQuitsScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 import java.util.UUID;
 
@@ -30,7 +28,8 @@ public class PlayerQuitPacketIn extends BungeePacketIn {
         if (name == null || ip == null) {
             return;
         }
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeBridge.instance.playerDirectory.quit(uuid);
+        BungeeBridge.runOnMainThread(() -> {
             BungeePlayerQuitsScriptEvent.instance.name = name;
             BungeePlayerQuitsScriptEvent.instance.uuid = uuid;
             BungeePlayerQuitsScriptEvent.instance.ip = ip;
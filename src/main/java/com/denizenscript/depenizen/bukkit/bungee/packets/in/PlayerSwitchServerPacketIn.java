@@ -1,11 +1,9 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeePlayerServerSwitchScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 import java.util.UUID;
 
@@ -30,7 +28,8 @@ public class PlayerSwitchServerPacketIn extends BungeePacketIn {
         if (name == null || serverName == null) {
             return;
         }
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeBridge.instance.playerDirectory.update(uuid, name, serverName);
+        BungeeBridge.runOnMainThread(() -> {
             BungeePlayerServerSwitchScriptEvent.instance.name = name;
             BungeePlayerServerSwitchScriptEvent.instance.uuid = uuid;
             BungeePlayerServerSwitchScriptEvent.instance.newServer = serverName;
@@ -1,12 +1,10 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.ProxyCommandResultPacketOut;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeeProxyServerCommandScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 import java.util.UUID;
 
@@ -31,7 +29,7 @@ public class ProxyCommandPacketIn extends BungeePacketIn {
             return;
         }
         UUID senderId = senderIdText.isEmpty() ? null : UUID.fromString(senderIdText);
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeBridge.runOnMainThread(() -> {
             BungeeProxyServerCommandScriptEvent.instance.sender = sender;
             BungeeProxyServerCommandScriptEvent.instance.senderId = senderId;
             BungeeProxyServerCommandScriptEvent.instance.command = new BungeeProxyServerCommandScriptEvent.CommandData();
@@ -1,12 +1,10 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.ProxyPingResultPacketOut;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeeProxyServerListPingScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 public class ProxyPingPacketIn extends BungeePacketIn {
 
@@ -31,7 +29,19 @@ public class ProxyPingPacketIn extends BungeePacketIn {
         if (address == null || motd == null || version == null) {
             return;
         }
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeProxyServerListPingScriptEvent.PingData template = BungeeBridge.instance.pingTemplate;
+        if (template != null && !BungeeBridge.instance.shouldFirePingEvent(address)) {
+            // Answered right away from the network thread, without involving the main thread at all
+            ProxyPingResultPacketOut packetOut = new ProxyPingResultPacketOut();
+            packetOut.id = id;
+            packetOut.maxPlayers = template.maxPlayers >= 0 ? template.maxPlayers : maxPlayers;
+            packetOut.version = template.version != null ? template.version : version;
+            packetOut.motd = template.motd != null ? template.motd : motd;
+            packetOut.playerSample = template.playerSample;
+            BungeeBridge.instance.sendPacket(packetOut);
+            return;
+        }
+        BungeeBridge.runOnMainThread(() -> {
             BungeeProxyServerListPingScriptEvent.PingData ping = new BungeeProxyServerListPingScriptEvent.PingData();
             ping.address = address;
             ping.currentPlayers = currentPlayers;
@@ -39,6 +49,18 @@ public class ProxyPingPacketIn extends BungeePacketIn {
             ping.motd = motd;
             ping.protocol = protocol;
             ping.version = version;
+            if (template != null) {
+                if (template.maxPlayers >= 0) {
+                    ping.maxPlayers = template.maxPlayers;
+                }
+                if (template.version != null) {
+                    ping.version = template.version;
+                }
+                if (template.motd != null) {
+                    ping.motd = template.motd;
+                }
+                ping.playerSample = template.playerSample;
+            }
             BungeeProxyServerListPingScriptEvent.instance.data = ping;
             BungeeProxyServerListPingScriptEvent.instance.fire();
             ProxyPingResultPacketOut packetOut = new ProxyPingResultPacketOut();
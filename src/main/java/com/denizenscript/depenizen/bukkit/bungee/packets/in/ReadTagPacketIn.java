@@ -2,19 +2,16 @@ package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
 import com.denizenscript.denizen.objects.PlayerTag;
 import com.denizenscript.denizen.tags.BukkitTagContext;
+import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.denizencore.tags.TagContext;
 import com.denizenscript.denizencore.tags.TagManager;
-import com.denizenscript.denizencore.utilities.CoreUtilities;
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.TagResponsePacketOut;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class ReadTagPacketIn extends BungeePacketIn {
@@ -32,37 +29,21 @@ public class ReadTagPacketIn extends BungeePacketIn {
         }
         String responseServer = readString(data, "serverName");
         String tag = readString(data, "tag");
-        String defs = readString(data, "defs");
-        if (tag == null || defs == null) {
+        if (tag == null) {
+            return;
+        }
+        Map<String, ObjectTag> defs = readDefinitions(data);
+        if (defs == null || data.readableBytes() < 16 + 4) {
             return;
         }
         long uuidMost = data.readLong();
         long uuidLeast = data.readLong();
         int responseId = data.readInt();
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
-            PlayerTag linkedPlayer = null;
-            if (uuidMost != 0 || uuidLeast != 0) {
-                UUID uuid = new UUID(uuidMost, uuidLeast);
-                try {
-                    OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-                    if (player != null) {
-                        linkedPlayer = new PlayerTag(player);
-                    }
-                }
-                catch (Exception ex) {
-                    // Ignore
-                }
-            }
+        BungeeBridge.runOnMainThread(() -> {
+            PlayerTag linkedPlayer = BungeeBridge.instance.playerResolver.resolve(new UUID(uuidMost, uuidLeast));
             TagContext context = new BukkitTagContext(linkedPlayer, null, null, false, null);
-            List<String> defSets = CoreUtilities.split(defs, '\r');
-            List<String> defNames = CoreUtilities.split(defSets.get(0), '\n');
-            List<String> defValues = CoreUtilities.split(defSets.get(1), '\n');
-            for (int i = 0; i < defNames.size(); i++) {
-                String name = RunCommandsPacketIn.unescape(defNames.get(i));
-                if (name.length() > 0) {
-                    String value = RunCommandsPacketIn.unescape(defValues.get(i));
-                    context.definitionProvider.addDefinition(name, value);
-                }
+            for (Map.Entry<String, ObjectTag> def : defs.entrySet()) {
+                context.definitionProvider.addDefinition(def.getKey(), def.getValue());
             }
             String result = TagManager.tag(tag, context);
             TagResponsePacketOut packet = new TagResponsePacketOut();
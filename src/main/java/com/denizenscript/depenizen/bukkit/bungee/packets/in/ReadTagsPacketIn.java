@@ -0,0 +1,73 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.denizen.objects.PlayerTag;
+import com.denizenscript.denizen.tags.BukkitTagContext;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.tags.TagContext;
+import com.denizenscript.denizencore.tags.TagManager;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.TagsResponsePacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ReadTagsPacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "ReadTags";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4 + 4 + 4 + 16 + 4) {
+            BungeeBridge.instance.handler.fail("Invalid ReadTagsPacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        String responseServer = readString(data, "serverName");
+        if (responseServer == null || data.readableBytes() < 4) {
+            return;
+        }
+        int count = data.readInt();
+        // Every entry needs at least its string length
+        if (count < 0 || count > data.readableBytes() / 4) {
+            fail("Invalid " + getName() + " Packet tag count (count: " + count + ", bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        List<String> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String tag = readString(data, "tag");
+            if (tag == null) {
+                return;
+            }
+            tags.add(tag);
+        }
+        Map<String, ObjectTag> defs = readDefinitions(data);
+        if (defs == null || data.readableBytes() < 16 + 4) {
+            return;
+        }
+        long uuidMost = data.readLong();
+        long uuidLeast = data.readLong();
+        int responseId = data.readInt();
+        BungeeBridge.runOnMainThread(() -> {
+            PlayerTag linkedPlayer = BungeeBridge.instance.playerResolver.resolve(new UUID(uuidMost, uuidLeast));
+            TagContext context = new BukkitTagContext(linkedPlayer, null, null, false, null);
+            for (Map.Entry<String, ObjectTag> def : defs.entrySet()) {
+                context.definitionProvider.addDefinition(def.getKey(), def.getValue());
+            }
+            List<String> results = new ArrayList<>(tags.size());
+            for (String tag : tags) {
+                results.add(TagManager.tag(tag, context));
+            }
+            TagsResponsePacketOut packet = new TagsResponsePacketOut();
+            packet.id = responseId;
+            packet.results = results;
+            BungeeBridge.instance.sendPacket(new RedirectPacketOut(responseServer, packet));
+        });
+    }
+}
@@ -1,11 +1,9 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import com.denizenscript.depenizen.bukkit.events.bungee.BungeeServerDisconnectScriptEvent;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 public class RemoveServerPacketIn extends BungeePacketIn {
 
@@ -24,7 +22,7 @@ public class RemoveServerPacketIn extends BungeePacketIn {
         if (serverName == null) {
             return;
         }
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
+        BungeeBridge.runOnMainThread(() -> {
             BungeeBridge.instance.knownServers.remove(serverName);
             BungeeServerDisconnectScriptEvent.instance.serverName = serverName;
             BungeeServerDisconnectScriptEvent.instance.fire();
@@ -0,0 +1,67 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.denizen.objects.PlayerTag;
+import com.denizenscript.denizen.utilities.implementation.BukkitScriptEntryData;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeCommandCache;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.CommandsCacheMissPacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+import java.util.Map;
+
+public class RunCachedCommandsPacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "RunCachedCommands";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4 + 4 + 16 + 1) {
+            BungeeBridge.instance.handler.fail("Invalid RunCachedCommandsPacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        String responseServer = readString(data, "serverName");
+        if (responseServer == null || data.readableBytes() < 4 + 16 + 1) {
+            return;
+        }
+        int requestId = data.readInt();
+        BungeeCommandCache.Key key = new BungeeCommandCache.Key(data.readLong(), data.readLong());
+        String commands = data.readBoolean() ? readString(data, "commands") : null;
+        Map<String, ObjectTag> defs = readDefinitions(data);
+        if (defs == null || data.readableBytes() < 1 + 16) {
+            return;
+        }
+        boolean shouldDebug = data.readByte() != 0;
+        long uuidMost = data.readLong();
+        long uuidLeast = data.readLong();
+        BungeeBridge.runOnMainThread(() -> {
+            BungeeCommandCache cache = BungeeBridge.instance.commandCache;
+            List<Object> rawEntries;
+            if (commands != null) {
+                rawEntries = RunCommandsPacketIn.parseCommands(commands);
+                cache.compiles++;
+                cache.compiled.put(key, rawEntries);
+            }
+            else {
+                rawEntries = cache.compiled.get(key);
+                if (rawEntries == null) {
+                    // Evicted, or this server restarted since - ask the sender for the full text
+                    cache.misses++;
+                    BungeeBridge.instance.sendPacket(new RedirectPacketOut(responseServer, new CommandsCacheMissPacketOut(requestId)));
+                    return;
+                }
+                cache.hits++;
+            }
+            // Only the text parsing is cached: the entries are built fresh for this run, with this run's player and debug setting,
+            // the same way RunCommandsPacketIn builds them, so cached and uncached runs of a block behave identically
+            PlayerTag linkedPlayer = RunCommandsPacketIn.getLinkedPlayer(uuidMost, uuidLeast);
+            RunCommandsPacketIn.runEntries(RunCommandsPacketIn.buildEntries(rawEntries, shouldDebug, new BukkitScriptEntryData(linkedPlayer, null)), defs);
+        });
+    }
+}
@@ -2,18 +2,17 @@ package com.denizenscript.depenizen.bukkit.bungee.packets.in;
 
 import com.denizenscript.denizen.objects.PlayerTag;
 import com.denizenscript.denizen.utilities.implementation.BukkitScriptEntryData;
+import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.denizencore.scripts.ScriptBuilder;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
+import com.denizenscript.denizencore.scripts.ScriptEntryData;
 import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
 import com.denizenscript.denizencore.scripts.queues.core.InstantQueue;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 
 import java.util.*;
 
@@ -31,58 +30,65 @@ public class RunCommandsPacketIn extends BungeePacketIn {
             return;
         }
         String commands = readString(data, "commands");
-        String defs = readString(data, "defs");
-        if (commands == null || defs == null) {
+        if (commands == null) {
+            return;
+        }
+        Map<String, ObjectTag> defs = readDefinitions(data);
+        if (defs == null || data.readableBytes() < 1 + 16) {
             return;
         }
         boolean shouldDebug = data.readByte() != 0;
         long uuidMost = data.readLong();
         long uuidLeast = data.readLong();
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
-            PlayerTag linkedPlayer = null;
-            if (uuidMost != 0 || uuidLeast != 0) {
-                UUID uuid = new UUID(uuidMost, uuidLeast);
-                try {
-                    OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-                    if (player != null) {
-                        linkedPlayer = new PlayerTag(player);
-                    }
-                }
-                catch (Exception ex) {
-                    // Ignore
-                }
-            }
-            List<String> commandsSeparated = CoreUtilities.split(commands, '\n');
-            List<Object> rawEntries = new ArrayList<>();
-            for (String cmd : commandsSeparated) {
-                if (cmd.length() > 0) {
-                    rawEntries.add(parseCommandsBack(unescape(cmd)));
-                }
-            }
-            List<ScriptEntry> entries = ScriptBuilder.buildScriptEntries(rawEntries, null, new BukkitScriptEntryData(linkedPlayer, null));
-            if (entries.isEmpty()) {
-                return;
-            }
-            if (!shouldDebug) {
-                for (ScriptEntry entry : entries) {
-                    entry.internal.shouldDebugBool = false;
-                }
+        BungeeBridge.runOnMainThread(() -> {
+            PlayerTag linkedPlayer = getLinkedPlayer(uuidMost, uuidLeast);
+            runEntries(buildEntries(commands, shouldDebug, new BukkitScriptEntryData(linkedPlayer, null)), defs);
+        });
+    }
+
+    public static PlayerTag getLinkedPlayer(long uuidMost, long uuidLeast) {
+        return BungeeBridge.instance.playerResolver.resolve(new UUID(uuidMost, uuidLeast));
+    }
+
+    public static List<ScriptEntry> buildEntries(String commands, boolean shouldDebug, ScriptEntryData data) {
+        return buildEntries(parseCommands(commands), shouldDebug, data);
+    }
+
+    /**
+     * Splits the sent text back into raw script entries (strings, and maps for braced blocks), ready for {@link ScriptBuilder#buildScriptEntries}.
+     */
+    public static List<Object> parseCommands(String commands) {
+        List<String> commandsSeparated = CoreUtilities.split(commands, '\n');
+        List<Object> rawEntries = new ArrayList<>();
+        for (String cmd : commandsSeparated) {
+            if (cmd.length() > 0) {
+                rawEntries.add(parseCommandsBack(unescape(cmd)));
             }
-            ScriptQueue queue = new InstantQueue("BUNGEE_");
-            queue.addEntries(entries);
-            List<String> defSets = CoreUtilities.split(defs, '\r');
-            List<String> defNames = CoreUtilities.split(defSets.get(0), '\n');
-            List<String> defValues = CoreUtilities.split(defSets.get(1), '\n');
-            for (int i = 0; i < defNames.size(); i++) {
-                String name = unescape(defNames.get(i));
-                if (name.length() > 0) {
-                    String value = unescape(defValues.get(i));
-                    queue.addDefinition(name, value);
-                    Debug.echoDebug(entries.get(0), "Adding definition '" + name + "' as " + value);
-                }
+        }
+        return rawEntries;
+    }
+
+    public static List<ScriptEntry> buildEntries(List<Object> rawEntries, boolean shouldDebug, ScriptEntryData data) {
+        List<ScriptEntry> entries = ScriptBuilder.buildScriptEntries(rawEntries, null, data);
+        if (!shouldDebug) {
+            for (ScriptEntry entry : entries) {
+                entry.internal.shouldDebugBool = false;
             }
-            queue.start();
-        });
+        }
+        return entries;
+    }
+
+    public static void runEntries(List<ScriptEntry> entries, Map<String, ObjectTag> defs) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ScriptQueue queue = new InstantQueue("BUNGEE_");
+        queue.addEntries(entries);
+        for (Map.Entry<String, ObjectTag> def : defs.entrySet()) {
+            queue.addDefinition(def.getKey(), def.getValue());
+            Debug.echoDebug(entries.get(0), "Adding definition '" + def.getKey() + "' as " + def.getValue());
+        }
+        queue.start();
     }
 
     public static String unescape(String text) {
@@ -6,17 +6,19 @@ import com.denizenscript.denizen.utilities.implementation.BukkitScriptEntryData;
 import com.denizenscript.denizencore.objects.core.ListTag;
 import com.denizenscript.denizencore.objects.core.ScriptTag;
 import com.denizenscript.denizencore.scripts.containers.core.TaskScriptContainer;
+import com.denizenscript.denizencore.scripts.queues.ScriptQueue;
 import com.denizenscript.denizencore.tags.TagContext;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.ScriptUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
-import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunScriptResponsePacketOut;
 import io.netty.buffer.ByteBuf;
-import org.bukkit.Bukkit;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public class RunScriptPacketIn extends BungeePacketIn {
 
@@ -38,12 +40,10 @@ public class RunScriptPacketIn extends BungeePacketIn {
         }
         long uuidMost = data.readLong();
         long uuidLeast = data.readLong();
-        Bukkit.getScheduler().scheduleSyncDelayedTask(Depenizen.instance, () -> {
-            PlayerTag linkedPlayer = null;
-            if (uuidMost != 0 || uuidLeast != 0) {
-                UUID uuid = new UUID(uuidMost, uuidLeast);
-                linkedPlayer = new PlayerTag(Bukkit.getOfflinePlayer(uuid));
-            }
+        String responseServer = data.readableBytes() >= 4 + 4 ? readString(data, "responseServer") : null;
+        int responseId = responseServer != null && data.readableBytes() >= 4 ? data.readInt() : 0;
+        BungeeBridge.runOnMainThread(() -> {
+            PlayerTag linkedPlayer = BungeeBridge.instance.playerResolver.resolve(new UUID(uuidMost, uuidLeast));
             String scrName = scriptName;
             String path = null;
             int dotIndex = scrName.indexOf('.');
@@ -54,15 +54,30 @@ public class RunScriptPacketIn extends BungeePacketIn {
             ScriptTag script = ScriptTag.valueOf(scrName, CoreUtilities.basicContext);
             if (script == null) {
                 Debug.echoError("Invalid Depenizen bungeerun script '" + scrName + "': script does not exist.");
+                sendResponse(responseServer, responseId, false, "");
                 return;
             }
             if (!(script.getContainer() instanceof TaskScriptContainer)) {
                 Debug.echoError("Invalid Depenizen bungeerun script '" + scrName + "': script is not a 'task' script.");
+                sendResponse(responseServer, responseId, false, "");
                 return;
             }
             TagContext context = new BukkitTagContext(linkedPlayer, null, script);
+            Consumer<ScriptQueue> configure = responseId == 0 ? null : (queue) -> queue.callBack(() -> {
+                ListTag determinations = queue.determinations;
+                sendResponse(responseServer, responseId, true, determinations == null ? "" : determinations.identify());
+            });
             ScriptUtilities.createAndStartQueue(script.getContainer(), path, new BukkitScriptEntryData(linkedPlayer, null),
-                    null, null, null, "BUNGEERUN_" + scrName, ListTag.valueOf(defs, context), script.getContainer());
+                    null, configure, null, "BUNGEERUN_" + scrName, ListTag.valueOf(defs, context), script.getContainer());
         });
     }
+
+    public static void sendResponse(String responseServer, int responseId, boolean success, String result) {
+        if (responseId == 0) {
+            return;
+        }
+        BungeeBridge.instance.sendPacket(new RedirectPacketOut(responseServer, new RunScriptResponsePacketOut(responseId, success, result)));
+        // Someone is waiting on this, so don't hold it back until the next tick's flush
+        BungeeBridge.instance.flush();
+    }
 }
@@ -0,0 +1,29 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeRunCommand;
+import io.netty.buffer.ByteBuf;
+
+public class RunScriptResponsePacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "RunScriptResponse";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4 + 1 + 4) {
+            BungeeBridge.instance.handler.fail("Invalid RunScriptResponsePacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        int id = data.readInt();
+        boolean success = data.readBoolean();
+        String result = readString(data, "result");
+        if (result == null) {
+            return;
+        }
+        BungeeBridge.runOnMainThreadUrgently(() -> BungeeRunCommand.handleResponse(id, success, result));
+    }
+}
@@ -23,6 +23,6 @@ public class TagResponsePacketIn extends BungeePacketIn {
             return;
         }
         int id = data.readInt();
-        BungeeTagCommand.handleResult(id, result);
+        BungeeBridge.runOnMainThreadUrgently(() -> BungeeTagCommand.handleResult(id, result));
     }
 }
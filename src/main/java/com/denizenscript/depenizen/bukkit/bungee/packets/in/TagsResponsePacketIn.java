@@ -0,0 +1,41 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.commands.bungee.BungeeTagCommand;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TagsResponsePacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "TagsResponse";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        if (data.readableBytes() < 4 + 4) {
+            BungeeBridge.instance.handler.fail("Invalid TagsResponsePacket (bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        int id = data.readInt();
+        int count = data.readInt();
+        // Every entry needs at least its string length
+        if (count < 0 || count > data.readableBytes() / 4) {
+            fail("Invalid " + getName() + " Packet result count (count: " + count + ", bytes available: " + data.readableBytes() + ")");
+            return;
+        }
+        List<String> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String result = readString(data, "result");
+            if (result == null) {
+                return;
+            }
+            results.add(result);
+        }
+        BungeeBridge.runOnMainThreadUrgently(() -> BungeeTagCommand.handleResults(id, results));
+    }
+}
@@ -0,0 +1,33 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.in;
+
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import com.denizenscript.depenizen.bukkit.events.bungee.BungeeMessageScriptEvent;
+import io.netty.buffer.ByteBuf;
+
+public class TopicMessagePacketIn extends BungeePacketIn {
+
+    @Override
+    public String getName() {
+        return "TopicMessage";
+    }
+
+    @Override
+    public void process(ByteBuf data) {
+        String source = readString(data, "source");
+        String topic = readString(data, "topic");
+        if (source == null || topic == null) {
+            return;
+        }
+        // Proxies without topic support send every message to every server, so filter here before decoding it or bothering the main thread
+        if (!BungeeBridge.instance.isSubscribedTo(topic)) {
+            return;
+        }
+        ObjectTag message = readDefinitionValue(data, 0);
+        if (message == null) {
+            return;
+        }
+        BungeeBridge.runOnMainThread(() -> BungeeMessageScriptEvent.instance.fire(source, topic, message));
+    }
+}
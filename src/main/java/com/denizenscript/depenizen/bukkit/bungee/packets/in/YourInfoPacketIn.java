@@ -18,6 +18,14 @@ public class YourInfoPacketIn extends BungeePacketIn {
             return;
         }
         BungeeBridge.instance.serverName = serverName;
+        // Older proxies don't send a feature set
+        BungeeBridge.instance.proxyFeatures = data.readableBytes() >= 4 ? data.readInt() : 0;
         BungeeBridge.instance.connected = true;
+        BungeeBridge.runOnMainThread(() -> {
+            BungeeBridge.instance.reconnectAttempts = 0;
+            BungeeBridge.instance.sendPingTemplate();
+            BungeeBridge.instance.checkBroadcastSubscriptions();
+            BungeeBridge.instance.replayOfflineQueue(true);
+        });
     }
 }
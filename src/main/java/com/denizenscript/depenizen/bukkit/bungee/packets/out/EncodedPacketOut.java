@@ -0,0 +1,33 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A packet encoded once up front, so it can be redirected to any number of servers without encoding it again.
+ * The payload is an unpooled read-only buffer, so it's safe to share and doesn't need releasing, even if it sits in the offline queue.
+ */
+public class EncodedPacketOut extends BungeePacketOut {
+
+    public EncodedPacketOut(BungeePacketOut packet) {
+        ByteBuf buf = Unpooled.buffer();
+        packet.writeTo(buf);
+        this.packetId = packet.getPacketId();
+        this.payload = buf.asReadOnly();
+    }
+
+    public int packetId;
+
+    public ByteBuf payload;
+
+    @Override
+    public int getPacketId() {
+        return packetId;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+    }
+}
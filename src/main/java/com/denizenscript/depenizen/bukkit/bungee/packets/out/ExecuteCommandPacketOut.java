@@ -11,6 +11,11 @@ public class ExecuteCommandPacketOut extends BungeePacketOut {
 
     public String command;
 
+    @Override
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.KEEP;
+    }
+
     @Override
     public int getPacketId() {
         return 15;
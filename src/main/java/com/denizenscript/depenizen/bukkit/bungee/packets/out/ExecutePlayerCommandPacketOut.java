@@ -12,6 +12,11 @@ public class ExecutePlayerCommandPacketOut extends BungeePacketOut {
 
     public String player, command;
 
+    @Override
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.KEEP;
+    }
+
     @Override
     public int getPacketId() {
         return 18;
@@ -1,10 +1,29 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.out;
 
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
 import io.netty.buffer.ByteBuf;
 
 public class KeepAlivePacketOut extends BungeePacketOut {
 
+    public KeepAlivePacketOut() {
+        this(false);
+    }
+
+    /**
+     * @param measureRtt whether to include a timestamp for measuring the round trip time. Only set this when the packet is flushed right away, or the sample includes the time it waited to be flushed.
+     */
+    public KeepAlivePacketOut(boolean measureRtt) {
+        this.measureRtt = measureRtt;
+    }
+
+    public boolean measureRtt;
+
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.SEND;
+    }
+
     @Override
     public int getPacketId() {
         return 1;
@@ -12,6 +31,9 @@ public class KeepAlivePacketOut extends BungeePacketOut {
 
     @Override
     public void writeTo(ByteBuf buf) {
-        // No data
+        // Proxies that support it echo the timestamp back, to measure the round trip time
+        if (measureRtt && BungeeBridge.instance.proxySupports(BungeeBridge.FEATURE_KEEPALIVE_RTT)) {
+            buf.writeLong(System.nanoTime());
+        }
     }
 }
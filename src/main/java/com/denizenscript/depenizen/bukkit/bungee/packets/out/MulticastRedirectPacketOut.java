@@ -0,0 +1,42 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+
+public class MulticastRedirectPacketOut extends BungeePacketOut {
+
+    public MulticastRedirectPacketOut(List<String> servers, EncodedPacketOut toSend) {
+        this.servers = servers;
+        this.toSend = toSend;
+    }
+
+    /**
+     * May contain {@link com.denizenscript.depenizen.bukkit.bungee.BungeeBridge#ALL_SERVERS}, which the proxy expands.
+     */
+    public List<String> servers;
+
+    public EncodedPacketOut toSend;
+
+    @Override
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.KEEP;
+    }
+
+    @Override
+    public int getPacketId() {
+        return 20;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeInt(servers.size());
+        for (String server : servers) {
+            writeString(buf, server);
+        }
+        buf.writeInt(toSend.payload.readableBytes());
+        buf.writeInt(toSend.getPacketId());
+        toSend.writeTo(buf);
+    }
+}
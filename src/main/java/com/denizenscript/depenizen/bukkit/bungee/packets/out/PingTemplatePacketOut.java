@@ -0,0 +1,46 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import com.denizenscript.depenizen.bukkit.events.bungee.BungeeProxyServerListPingScriptEvent;
+import io.netty.buffer.ByteBuf;
+
+public class PingTemplatePacketOut extends BungeePacketOut {
+
+    public PingTemplatePacketOut(BungeeProxyServerListPingScriptEvent.PingData template, String eventAddresses, boolean fireEvent) {
+        this.template = template;
+        this.eventAddresses = eventAddresses;
+        this.fireEvent = fireEvent;
+    }
+
+    /**
+     * Null to clear the template.
+     */
+    public BungeeProxyServerListPingScriptEvent.PingData template;
+
+    public String eventAddresses;
+
+    public boolean fireEvent;
+
+    @Override
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.COALESCE;
+    }
+
+    @Override
+    public int getPacketId() {
+        return 19;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeBoolean(template != null);
+        if (template != null) {
+            buf.writeInt(template.maxPlayers);
+            writeNullable(buf, template.version, this::writeString);
+            writeNullable(buf, template.motd, this::writeString);
+            ProxyPingResultPacketOut.writePlayerSample(this, buf, template.playerSample);
+        }
+        writeString(buf, eventAddresses);
+        buf.writeBoolean(fireEvent);
+    }
+}
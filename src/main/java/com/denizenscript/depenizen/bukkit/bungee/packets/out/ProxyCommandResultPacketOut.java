@@ -9,6 +9,11 @@ public class ProxyCommandResultPacketOut extends BungeePacketOut {
 
     public String result;
 
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.SEND;
+    }
+
     @Override
     public int getPacketId() {
         return 17;
@@ -18,6 +18,11 @@ public class ProxyPingResultPacketOut extends BungeePacketOut {
 
     public List<BungeeProxyServerListPingScriptEvent.PlayerInfo> playerSample;
 
+    @Override
+    public BackpressurePolicy getBackpressurePolicy() {
+        return BackpressurePolicy.SEND;
+    }
+
     @Override
     public int getPacketId() {
         return 13;
@@ -29,13 +34,17 @@ public class ProxyPingResultPacketOut extends BungeePacketOut {
         buf.writeInt(maxPlayers);
         writeString(buf, version);
         writeString(buf, motd);
+        writePlayerSample(this, buf, playerSample);
+    }
+
+    public static void writePlayerSample(BungeePacketOut packet, ByteBuf buf, List<BungeeProxyServerListPingScriptEvent.PlayerInfo> playerSample) {
         if (playerSample == null) {
             buf.writeInt(-1);
         }
         else {
             buf.writeInt(playerSample.size());
             for (int i = 0; i < playerSample.size(); i++) {
-                writeString(buf, playerSample.get(i).name);
+                packet.writeString(buf, playerSample.get(i).name);
                 buf.writeLong(playerSample.get(i).id.getMostSignificantBits());
                 buf.writeLong(playerSample.get(i).id.getLeastSignificantBits());
             }
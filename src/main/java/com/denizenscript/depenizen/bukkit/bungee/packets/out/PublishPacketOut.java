@@ -0,0 +1,33 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out;
+
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+public class PublishPacketOut extends BungeePacketOut {
+
+    public PublishPacketOut(String topic, ObjectTag message) {
+        this.topic = topic;
+        this.message = message;
+    }
+
+    public String topic;
+
+    public ObjectTag message;
+
+    @Override
+    public int getPacketId() {
+        return 23;
+    }
+
+    @Override
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.KEEP;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        writeString(buf, topic);
+        writeDefinitionValue(buf, message);
+    }
+}
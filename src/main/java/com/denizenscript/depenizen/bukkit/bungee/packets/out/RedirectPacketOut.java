@@ -14,6 +14,11 @@ public class RedirectPacketOut extends BungeePacketOut {
 
     public BungeePacketOut toSend;
 
+    @Override
+    public OfflinePolicy getOfflinePolicy() {
+        return OfflinePolicy.KEEP;
+    }
+
     @Override
     public int getPacketId() {
         return 14;
@@ -22,11 +27,11 @@ public class RedirectPacketOut extends BungeePacketOut {
     @Override
     public void writeTo(ByteBuf buf) {
         writeString(buf, server);
-        ByteBuf nbuf = buf.alloc().buffer();
-        toSend.writeTo(nbuf);
-        buf.writeInt(nbuf.writerIndex());
+        // Write the inner packet in place, and fill in its length after
+        int lengthIndex = buf.writerIndex();
+        buf.writeInt(0);
         buf.writeInt(toSend.getPacketId());
-        buf.writeBytes(nbuf);
-        nbuf.release();
+        toSend.writeTo(buf);
+        buf.setInt(lengthIndex, buf.writerIndex() - lengthIndex - 8);
     }
 }
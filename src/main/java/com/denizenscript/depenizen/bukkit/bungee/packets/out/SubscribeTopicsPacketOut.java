@@ -0,0 +1,32 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Collection;
+
+public class SubscribeTopicsPacketOut extends BungeePacketOut {
+
+    public SubscribeTopicsPacketOut(boolean all, Collection<String> topics) {
+        this.all = all;
+        this.topics = topics;
+    }
+
+    public boolean all;
+
+    public Collection<String> topics;
+
+    @Override
+    public int getPacketId() {
+        return 22;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeBoolean(all);
+        buf.writeInt(topics.size());
+        for (String topic : topics) {
+            writeString(buf, topic);
+        }
+    }
+}
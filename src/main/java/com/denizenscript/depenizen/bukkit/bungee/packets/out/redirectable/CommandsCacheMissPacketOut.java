@@ -0,0 +1,23 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+public class CommandsCacheMissPacketOut extends BungeePacketOut {
+
+    public CommandsCacheMissPacketOut(int requestId) {
+        this.requestId = requestId;
+    }
+
+    public int requestId;
+
+    @Override
+    public int getPacketId() {
+        return 66;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeInt(requestId);
+    }
+}
@@ -1,9 +1,11 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
 
+import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
 import io.netty.buffer.ByteBuf;
 
+import java.util.Map;
 import java.util.UUID;
 
 public class ReadTagPacketOut extends BungeePacketOut {
@@ -12,7 +14,7 @@ public class ReadTagPacketOut extends BungeePacketOut {
 
     public UUID playerUUID;
 
-    public String defs;
+    public Map<String, ObjectTag> defs;
 
     public int id;
 
@@ -25,7 +27,7 @@ public class ReadTagPacketOut extends BungeePacketOut {
     public void writeTo(ByteBuf buf) {
         writeString(buf, BungeeBridge.instance.serverName);
         writeString(buf, tag);
-        writeString(buf, defs);
+        writeDefinitions(buf, defs);
         buf.writeLong(playerUUID.getMostSignificantBits());
         buf.writeLong(playerUUID.getLeastSignificantBits());
         buf.writeInt(id);
@@ -0,0 +1,39 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
+
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ReadTagsPacketOut extends BungeePacketOut {
+
+    public List<String> tags;
+
+    public UUID playerUUID;
+
+    public Map<String, ObjectTag> defs;
+
+    public int id;
+
+    @Override
+    public int getPacketId() {
+        return 62;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        writeString(buf, BungeeBridge.instance.serverName);
+        buf.writeInt(tags.size());
+        for (String tag : tags) {
+            writeString(buf, tag);
+        }
+        writeDefinitions(buf, defs);
+        buf.writeLong(playerUUID.getMostSignificantBits());
+        buf.writeLong(playerUUID.getLeastSignificantBits());
+        buf.writeInt(id);
+    }
+}
@@ -0,0 +1,47 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
+
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeCommandCache;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Map;
+import java.util.UUID;
+
+public class RunCachedCommandsPacketOut extends BungeePacketOut {
+
+    public String serverName;
+
+    public int requestId;
+
+    public BungeeCommandCache.Key key;
+
+    /**
+     * Null if the remote server should already have the commands compiled.
+     */
+    public String commands;
+
+    public Map<String, ObjectTag> defs;
+
+    public boolean shouldDebug;
+
+    public UUID playerUUID;
+
+    @Override
+    public int getPacketId() {
+        return 65;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        writeString(buf, serverName);
+        buf.writeInt(requestId);
+        buf.writeLong(key.high());
+        buf.writeLong(key.low());
+        writeNullable(buf, commands, this::writeString);
+        writeDefinitions(buf, defs);
+        buf.writeByte(shouldDebug ? 1 : 0);
+        buf.writeLong(playerUUID.getMostSignificantBits());
+        buf.writeLong(playerUUID.getLeastSignificantBits());
+    }
+}
@@ -1,13 +1,15 @@
 package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
 
+import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
 import io.netty.buffer.ByteBuf;
 
+import java.util.Map;
 import java.util.UUID;
 
 public class RunCommandsPacketOut extends BungeePacketOut {
 
-    public RunCommandsPacketOut(String commands, String defs, boolean shouldDebug, UUID playerUUID) {
+    public RunCommandsPacketOut(String commands, Map<String, ObjectTag> defs, boolean shouldDebug, UUID playerUUID) {
         this.commands = commands;
         this.defs = defs;
         this.shouldDebug = shouldDebug;
@@ -16,7 +18,7 @@ public class RunCommandsPacketOut extends BungeePacketOut {
 
     public String commands;
 
-    public String defs;
+    public Map<String, ObjectTag> defs;
 
     public boolean shouldDebug;
 
@@ -30,7 +32,7 @@ public class RunCommandsPacketOut extends BungeePacketOut {
     @Override
     public void writeTo(ByteBuf buf) {
         writeString(buf, commands);
-        writeString(buf, defs);
+        writeDefinitions(buf, defs);
         buf.writeByte(shouldDebug ? 1 : 0);
         buf.writeLong(playerUUID.getMostSignificantBits());
         buf.writeLong(playerUUID.getLeastSignificantBits());
@@ -13,6 +13,13 @@ public class RunScriptPacketOut extends BungeePacketOut {
 
     public String defs;
 
+    /**
+     * Non-zero if the sender is waiting for the queue's determinations, to be sent back to the response server with this ID.
+     */
+    public int responseId;
+
+    public String responseServer;
+
     @Override
     public int getPacketId() {
         return 57;
@@ -24,5 +31,10 @@ public class RunScriptPacketOut extends BungeePacketOut {
         writeString(buf, defs);
         buf.writeLong(playerUUID.getMostSignificantBits());
         buf.writeLong(playerUUID.getLeastSignificantBits());
+        // Appended, so servers that don't support responses can still read the rest
+        if (responseId != 0) {
+            writeString(buf, responseServer);
+            buf.writeInt(responseId);
+        }
     }
 }
@@ -0,0 +1,31 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+public class RunScriptResponsePacketOut extends BungeePacketOut {
+
+    public RunScriptResponsePacketOut(int id, boolean success, String result) {
+        this.id = id;
+        this.success = success;
+        this.result = result;
+    }
+
+    public int id;
+
+    public boolean success;
+
+    public String result;
+
+    @Override
+    public int getPacketId() {
+        return 67;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeInt(id);
+        buf.writeBoolean(success);
+        writeString(buf, result);
+    }
+}
@@ -0,0 +1,27 @@
+package com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+
+public class TagsResponsePacketOut extends BungeePacketOut {
+
+    public List<String> results;
+
+    public int id;
+
+    @Override
+    public int getPacketId() {
+        return 63;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeInt(id);
+        buf.writeInt(results.size());
+        for (String result : results) {
+            writeString(buf, result);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.denizenscript.depenizen.bukkit.clientizen;
+
+import com.denizenscript.denizencore.scripts.ScriptHelper;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.depenizen.bukkit.Depenizen;
+import com.denizenscript.depenizen.bukkit.clientizen.network.packets.SetScriptsPacketOut;
+import com.denizenscript.depenizen.bukkit.clientizen.network.packets.UpdateScriptsPacketOut;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the client scripts folder off the main thread: files are read, stripped of comments and hashed in parallel, then the packets are pre-encoded.
+ * Nothing here touches server state, the result is applied on the main thread by {@link ClientizenBridge}.
+ */
+public class ClientScriptLoader {
+
+    public static final int THREADS = getThreadCount();
+
+    private static int getThreadCount() {
+        int configured = Depenizen.instance.getConfig().getInt("Clientizen.loading threads", 0);
+        return configured > 0 ? configured : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static ExecutorService pool;
+
+    public static ExecutorService getPool() {
+        if (pool == null) {
+            AtomicInteger threadId = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "Depenizen-Clientizen-Loader-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    /**
+     * Stops the loading threads, any load still in progress is abandoned.
+     */
+    public static void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    public record LoadedFile(String name, String script, String hash, Exception error) {
+    }
+
+    /**
+     * The immutable result of a load. Timings are in nanoseconds.
+     */
+    public record Result(Map<String, String> scripts, Map<String, String> hashes, SetScriptsPacketOut scriptsPacket,
+                         Map<String, String> previousHashes, UpdateScriptsPacketOut sharedUpdate,
+                         List<LoadedFile> failed, List<String> duplicates,
+                         long listNanos, long readNanos, long encodeNanos) {
+    }
+
+    /**
+     * @param previousHashes the hashes currently in use, to pre-encode the update for players that have them.
+     */
+    public static CompletableFuture<Result> load(File folder, Map<String, String> previousHashes) {
+        ExecutorService pool = getPool();
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> CoreUtilities.listDScriptFiles(folder), pool).thenCompose(files -> {
+            long listed = System.nanoTime();
+            List<CompletableFuture<LoadedFile>> reads = new ArrayList<>(files.size());
+            for (File file : files) {
+                reads.add(CompletableFuture.supplyAsync(() -> loadFile(file), pool));
+            }
+            return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).thenApplyAsync(v -> {
+                long read = System.nanoTime();
+                Map<String, String> scripts = new HashMap<>();
+                Map<String, String> hashes = new HashMap<>();
+                List<LoadedFile> failed = new ArrayList<>();
+                List<String> duplicates = new ArrayList<>();
+                for (CompletableFuture<LoadedFile> future : reads) {
+                    LoadedFile loaded = future.join();
+                    if (scripts.containsKey(loaded.name())) {
+                        duplicates.add(loaded.name());
+                        continue;
+                    }
+                    if (loaded.error() != null) {
+                        failed.add(loaded);
+                        continue;
+                    }
+                    scripts.put(loaded.name(), loaded.script());
+                    hashes.put(loaded.name(), loaded.hash());
+                }
+                scripts = Collections.unmodifiableMap(scripts);
+                hashes = Collections.unmodifiableMap(hashes);
+                SetScriptsPacketOut scriptsPacket = new SetScriptsPacketOut(scripts);
+                scriptsPacket.getCompressed();
+                UpdateScriptsPacketOut sharedUpdate = new UpdateScriptsPacketOut(previousHashes, scripts, hashes);
+                sharedUpdate.getCompressed();
+                long encoded = System.nanoTime();
+                return new Result(scripts, hashes, scriptsPacket, previousHashes, sharedUpdate, failed, duplicates, listed - start, read - listed, encoded - read);
+            }, pool);
+        });
+    }
+
+    public static LoadedFile loadFile(File file) {
+        String name = CoreUtilities.toLowerCase(file.getName());
+        try (FileInputStream stream = new FileInputStream(file)) {
+            // Same comment clearing as server scripts, without source tracking as the client has no use for it
+            String script = ScriptHelper.clearComments(name, ScriptHelper.convertStreamToString(stream), false);
+            return new LoadedFile(name, script, ClientizenBridge.hashScript(script), null);
+        }
+        catch (Exception ex) {
+            return new LoadedFile(name, null, null, ex);
+        }
+    }
+}
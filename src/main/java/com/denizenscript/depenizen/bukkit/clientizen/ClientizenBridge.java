@@ -6,16 +6,19 @@ import com.denizenscript.denizen.objects.PlayerTag;
 import com.denizenscript.denizencore.DenizenCore;
 import com.denizenscript.denizencore.events.ScriptEvent;
 import com.denizenscript.denizencore.objects.core.ElementTag;
-import com.denizenscript.denizencore.scripts.ScriptHelper;
+import com.denizenscript.denizencore.objects.core.MapTag;
 import com.denizenscript.denizencore.utilities.CoreConfiguration;
-import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.clientizen.commands.ClientRunCommand;
+import com.denizenscript.depenizen.bukkit.clientizen.network.ClientizenInbox;
 import com.denizenscript.depenizen.bukkit.clientizen.network.NetworkManager;
+import com.denizenscript.depenizen.bukkit.clientizen.network.ScriptsChunkSender;
+import com.denizenscript.depenizen.bukkit.clientizen.network.ScriptsPayloadPacketOut;
 import com.denizenscript.depenizen.bukkit.clientizen.network.packets.FireEventPacketIn;
 import com.denizenscript.depenizen.bukkit.clientizen.network.packets.ReceiveConfirmationPacketIn;
 import com.denizenscript.depenizen.bukkit.clientizen.network.packets.SetScriptsPacketOut;
+import com.denizenscript.depenizen.bukkit.clientizen.network.packets.UpdateScriptsPacketOut;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -23,14 +26,23 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 public class ClientizenBridge implements Listener {
 
     public static Map<String, String> clientizenScripts = new HashMap<>();
+    public static Map<String, String> clientizenScriptHashes = new HashMap<>();
     public static SetScriptsPacketOut scriptsPacket;
     public static Set<UUID> clientizenPlayers = new HashSet<>();
+    // The script hashes each player's client has, for clients that support receiving only changes. Never modified in place, so players with the same state share a map.
+    public static Map<UUID, Map<String, String>> playerScriptHashes = new HashMap<>();
+    // Players whose clients accept script payloads compressed and in chunks, see ScriptsChunkSender
+    public static Set<UUID> compressionPlayers = new HashSet<>();
+
+    public static final int CAPABILITY_COMPRESSED_CHUNKS = 1;
 
     public static File clientizenFolder = new File(Denizen.instance.getDataFolder(), "client-scripts");
 
@@ -40,6 +52,8 @@ public class ClientizenBridge implements Listener {
         clientizenFolder.mkdir();
         // Networking
         NetworkManager.init();
+        ScriptsChunkSender.init();
+        ClientizenInbox.init();
         NetworkManager.registerInPacket(new ReceiveConfirmationPacketIn());
         NetworkManager.registerInPacket(new FireEventPacketIn());
         // Scripts features
@@ -56,46 +70,162 @@ public class ClientizenBridge implements Listener {
         PlayerTag.registerOnlineOnlyTag(ElementTag.class, "has_clientizen", (attribute, object) -> {
             return new ElementTag(clientizenPlayers.contains(object.getUUID()));
         });
+
+        // <--[tag]
+        // @attribute <PlayerTag.clientizen_traffic>
+        // @returns MapTag
+        // @group Clientizen
+        // @description
+        // Returns counters for the messages the player's client has sent, as a map of channel name to a map with keys 'received', 'throttled' (rejected by the rate limit), and 'dropped' (too large, or too many waiting to be processed).
+        // See the 'Clientizen.messages per second' and 'Clientizen.message burst' config options.
+        // -->
+        PlayerTag.registerOnlineOnlyTag(MapTag.class, "clientizen_traffic", (attribute, object) -> {
+            return ClientizenInbox.getCountersMap(object.getUUID());
+        });
         Debug.log("Clientizen support enabled!");
     }
 
-    public static void acceptNewPlayer(Player player) {
+    public static void shutdown() {
+        ClientScriptLoader.shutdown();
+        ClientizenInbox.shutdown();
+    }
+
+    /**
+     * Client scripts are loaded asynchronously, so {@link #scriptsPacket} is null until the first load finishes.
+     * Players accepted before then are sent their scripts by {@link #applyClientScripts(ClientScriptLoader.Result)}.
+     *
+     * @param cachedHashes the hashes of the client scripts the player's client has cached, or null if it only supports receiving all scripts.
+     * @param capabilities the client's capability flags, see {@link #CAPABILITY_COMPRESSED_CHUNKS}.
+     */
+    public static void acceptNewPlayer(Player player, Map<String, String> cachedHashes, int capabilities) {
         clientizenPlayers.add(player.getUniqueId());
-        NetworkManager.send(player, scriptsPacket);
+        if ((capabilities & CAPABILITY_COMPRESSED_CHUNKS) != 0) {
+            compressionPlayers.add(player.getUniqueId());
+        }
+        else {
+            compressionPlayers.remove(player.getUniqueId());
+        }
+        if (scriptsPacket == null) {
+            // Client scripts are still loading for the first time, they'll be sent to everyone once loaded
+            if (cachedHashes != null) {
+                playerScriptHashes.put(player.getUniqueId(), cachedHashes);
+            }
+            return;
+        }
+        if (cachedHashes == null) {
+            sendScripts(player, scriptsPacket);
+            return;
+        }
+        UpdateScriptsPacketOut update = new UpdateScriptsPacketOut(cachedHashes, clientizenScripts, clientizenScriptHashes);
+        if (!update.isEmpty) {
+            sendScripts(player, update);
+        }
+        playerScriptHashes.put(player.getUniqueId(), clientizenScriptHashes);
     }
 
-    // TODO: load client scripts async, same as regular ones
+    public static void sendScripts(Player player, ScriptsPayloadPacketOut packet) {
+        if (compressionPlayers.contains(player.getUniqueId())) {
+            ScriptsChunkSender.send(player, packet);
+        }
+        else {
+            NetworkManager.send(player, packet);
+        }
+    }
+
+    public static String hashScript(String script) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return result.toString();
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static int reloadGeneration = 0;
+
+    /**
+     * Loads the client scripts folder asynchronously, then applies the result and sends it to players on the main thread.
+     */
     public static void reloadClientScripts() {
-        clientizenScripts.clear();
-        for (File file : CoreUtilities.listDScriptFiles(clientizenFolder)) {
-            String name = CoreUtilities.toLowerCase(file.getName());
-            if (clientizenScripts.containsKey(name)) {
-                Debug.echoError("Multiple script files named '" + name + "' found in client-scripts folder!");
-                continue;
+        int generation = ++reloadGeneration;
+        ClientScriptLoader.load(clientizenFolder, clientizenScriptHashes).whenComplete((result, ex) -> {
+            if (!Depenizen.instance.isEnabled()) {
+                return;
             }
-            try (FileInputStream stream = new FileInputStream(file)) {
-                // TODO: clear comments server-side
-                clientizenScripts.put(name, ScriptHelper.convertStreamToString(stream));
-                if (CoreConfiguration.debugLoadingInfo) {
-                    Debug.log("Loaded client script: " + name);
+            Bukkit.getScheduler().runTask(Depenizen.instance, () -> {
+                if (ex != null) {
+                    Debug.echoError("Failed to load client scripts, see below stack trace:");
+                    Debug.echoError(ex);
+                    return;
+                }
+                // A newer reload started while this one was loading, so this result is already outdated
+                if (generation != reloadGeneration) {
+                    return;
                 }
+                applyClientScripts(result);
+            });
+        });
+    }
+
+    public static void applyClientScripts(ClientScriptLoader.Result result) {
+        long start = System.nanoTime();
+        for (String name : result.duplicates()) {
+            Debug.echoError("Multiple script files named '" + name + "' found in client-scripts folder!");
+        }
+        for (ClientScriptLoader.LoadedFile failed : result.failed()) {
+            Debug.echoError("Failed to load client script file '" + failed.name() + "', see below stack trace:");
+            Debug.echoError(failed.error());
+        }
+        if (CoreConfiguration.debugLoadingInfo) {
+            for (String name : result.scripts().keySet()) {
+                Debug.log("Loaded client script: " + name);
             }
-            catch (Exception e) {
-                Debug.echoError("Failed to load client script file '" + name + "', see below stack trace:");
-                Debug.echoError(e);
+        }
+        Map<String, String> previousHashes = result.previousHashes();
+        clientizenScripts = result.scripts();
+        clientizenScriptHashes = result.hashes();
+        scriptsPacket = result.scriptsPacket();
+        for (UUID uuid : clientizenPlayers) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null) {
+                continue;
             }
+            Map<String, String> knownHashes = playerScriptHashes.get(uuid);
+            if (knownHashes == null) {
+                sendScripts(player, scriptsPacket);
+                continue;
+            }
+            // Most players are up to date with the previous scripts, so they all get the same pre-encoded changes
+            UpdateScriptsPacketOut update = knownHashes == previousHashes ? result.sharedUpdate() : new UpdateScriptsPacketOut(knownHashes, clientizenScripts, clientizenScriptHashes);
+            if (!update.isEmpty) {
+                sendScripts(player, update);
+            }
+            playerScriptHashes.put(uuid, clientizenScriptHashes);
         }
-        scriptsPacket = new SetScriptsPacketOut(clientizenScripts);
+        Debug.log("Loaded " + clientizenScripts.size() + " client scripts (list: " + toMillis(result.listNanos()) + "ms, read: " + toMillis(result.readNanos())
+                + "ms, encode: " + toMillis(result.encodeNanos()) + "ms, apply: " + toMillis(System.nanoTime() - start) + "ms).");
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         clientizenPlayers.remove(event.getPlayer().getUniqueId());
+        playerScriptHashes.remove(event.getPlayer().getUniqueId());
+        compressionPlayers.remove(event.getPlayer().getUniqueId());
+        ScriptsChunkSender.cancel(event.getPlayer().getUniqueId());
+        ClientizenInbox.remove(event.getPlayer().getUniqueId());
     }
 
     @EventHandler
     public void onScriptsReload(ScriptReloadEvent event) {
         reloadClientScripts();
-        NetworkManager.broadcast(scriptsPacket);
     }
 }
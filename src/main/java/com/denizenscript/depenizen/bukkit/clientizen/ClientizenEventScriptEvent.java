@@ -71,12 +71,17 @@ public class ClientizenEventScriptEvent extends ScriptEvent {
     }
 
     public void fire(Player source, String id, Map<String, String> contexts) {
-        player = source;
-        this.id = id;
-        contextMap = new MapTag();
+        MapTag contextMap = new MapTag();
         for (Map.Entry<String, String> entry : contexts.entrySet()) {
             contextMap.putObject(entry.getKey(), new ElementTag(entry.getValue()));
         }
+        fire(source, id, contextMap);
+    }
+
+    public void fire(Player source, String id, MapTag contextMap) {
+        player = source;
+        this.id = id;
+        this.contextMap = contextMap;
         fire();
     }
 
@@ -0,0 +1,219 @@
+package com.denizenscript.depenizen.bukkit.clientizen.network;
+
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
+import com.denizenscript.denizencore.utilities.debugging.Debug;
+import com.denizenscript.depenizen.bukkit.Depenizen;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many messages each client can send, and handles them on the main thread within a per-tick time budget.
+ * Small messages are decoded and handled right away. Messages larger than {@link #ASYNC_DECODE_SIZE} are decoded on a separate thread,
+ * and handled in the next tick's drain, so they're handled at least a tick later.
+ */
+public class ClientizenInbox {
+
+    public static final double MESSAGES_PER_SECOND = Depenizen.instance.getConfig().getDouble("Clientizen.messages per second", 20);
+
+    public static final double MESSAGE_BURST = Math.max(1, Depenizen.instance.getConfig().getDouble("Clientizen.message burst", 40));
+
+    public static final int MAX_QUEUED_PER_PLAYER = Depenizen.instance.getConfig().getInt("Clientizen.max queued messages", 100);
+
+    public static final int ASYNC_DECODE_SIZE = Depenizen.instance.getConfig().getInt("Clientizen.async decode size", 4096);
+
+    public static final long TICK_BUDGET_NANOS = (long) (Depenizen.instance.getConfig().getDouble("Clientizen.main thread budget", 2) * 1_000_000);
+
+    public static class ChannelCounters {
+
+        public long received, throttled, dropped;
+    }
+
+    /**
+     * Only accessed on the main thread, apart from {@link #queued}.
+     */
+    public static class PlayerTraffic {
+
+        public double tokens = MESSAGE_BURST;
+
+        public long lastRefill = System.nanoTime();
+
+        public final AtomicInteger queued = new AtomicInteger();
+
+        public final Map<String, ChannelCounters> channels = new HashMap<>();
+
+        public ChannelCounters getCounters(String channel) {
+            return channels.computeIfAbsent(channel, k -> new ChannelCounters());
+        }
+    }
+
+    public record Task(UUID player, PlayerTraffic traffic, Runnable runnable) {
+    }
+
+    public static final Map<UUID, PlayerTraffic> traffic = new HashMap<>();
+
+    public static final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+
+    private static ExecutorService decoder;
+
+    public static void init() {
+        decoder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Depenizen-Clientizen-Decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(Depenizen.instance, ClientizenInbox::drain, 1, 1);
+    }
+
+    /**
+     * Stops the decoding thread and discards anything still waiting to run.
+     */
+    public static void shutdown() {
+        if (decoder != null) {
+            decoder.shutdownNow();
+            decoder = null;
+        }
+        tasks.clear();
+        traffic.clear();
+    }
+
+    public static PlayerTraffic getTraffic(Player player) {
+        return traffic.computeIfAbsent(player.getUniqueId(), k -> new PlayerTraffic());
+    }
+
+    public static void remove(UUID player) {
+        traffic.remove(player);
+    }
+
+    /**
+     * Takes a token from the player's bucket, refilling it for the time passed since the last message. Returns false (and counts the message as throttled) if the bucket is empty.
+     */
+    public static boolean tryAccept(Player player, String channel) {
+        PlayerTraffic playerTraffic = getTraffic(player);
+        ChannelCounters counters = playerTraffic.getCounters(channel);
+        long now = System.nanoTime();
+        playerTraffic.tokens = Math.min(MESSAGE_BURST, playerTraffic.tokens + (now - playerTraffic.lastRefill) / 1_000_000_000.0 * MESSAGES_PER_SECOND);
+        playerTraffic.lastRefill = now;
+        if (playerTraffic.tokens < 1) {
+            counters.throttled++;
+            return false;
+        }
+        playerTraffic.tokens--;
+        counters.received++;
+        return true;
+    }
+
+    public static void countDropped(Player player, String channel) {
+        getTraffic(player).getCounters(channel).dropped++;
+    }
+
+    /**
+     * Main thread time spent on messages handled right away this tick, which counts towards the tick budget.
+     */
+    public static long inlineNanosThisTick = 0;
+
+    /**
+     * Decodes a message and handles the task the decoder returns (if any) on the main thread. Must be called on the main thread.
+     * Small messages are decoded and handled right away, unless the tick budget is used up or earlier messages from the player are still waiting, in which case they're queued.
+     * Messages larger than {@link #ASYNC_DECODE_SIZE} bytes are decoded on the decoding thread, which adds at least a tick of latency.
+     * Messages are dropped if too many from the same player are already waiting.
+     */
+    public static void decode(Player player, String channel, int size, Supplier<Runnable> decode) {
+        ExecutorService decoder = ClientizenInbox.decoder;
+        if (decoder == null || decoder.isShutdown()) {
+            return;
+        }
+        PlayerTraffic playerTraffic = getTraffic(player);
+        if (playerTraffic.queued.get() >= MAX_QUEUED_PER_PLAYER) {
+            playerTraffic.getCounters(channel).dropped++;
+            return;
+        }
+        UUID uuid = player.getUniqueId();
+        // While earlier messages are waiting, this one goes the same way, so each player's messages stay in order
+        if (size <= ASYNC_DECODE_SIZE && playerTraffic.queued.get() == 0) {
+            long start = System.nanoTime();
+            Runnable task = runDecoder(decode);
+            if (task != null) {
+                if (inlineNanosThisTick < TICK_BUDGET_NANOS) {
+                    run(task);
+                }
+                else {
+                    playerTraffic.queued.incrementAndGet();
+                    tasks.add(new Task(uuid, playerTraffic, task));
+                }
+            }
+            inlineNanosThisTick += System.nanoTime() - start;
+            return;
+        }
+        playerTraffic.queued.incrementAndGet();
+        decoder.execute(() -> {
+            Runnable task = runDecoder(decode);
+            if (task == null) {
+                playerTraffic.queued.decrementAndGet();
+                return;
+            }
+            tasks.add(new Task(uuid, playerTraffic, task));
+        });
+    }
+
+    private static Runnable runDecoder(Supplier<Runnable> decode) {
+        try {
+            return decode.get();
+        }
+        catch (Throwable ex) {
+            Debug.echoError(ex);
+            return null;
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        }
+        catch (Throwable ex) {
+            Debug.echoError(ex);
+        }
+    }
+
+    public static void drain() {
+        inlineNanosThisTick = 0;
+        long start = System.nanoTime();
+        Task task;
+        while ((task = tasks.poll()) != null) {
+            task.traffic().queued.decrementAndGet();
+            // The player may have left while the message was waiting
+            if (traffic.get(task.player()) == task.traffic()) {
+                run(task.runnable());
+            }
+            if (System.nanoTime() - start >= TICK_BUDGET_NANOS) {
+                break;
+            }
+        }
+    }
+
+    public static MapTag getCountersMap(UUID player) {
+        MapTag result = new MapTag();
+        PlayerTraffic playerTraffic = traffic.get(player);
+        if (playerTraffic == null) {
+            return result;
+        }
+        for (Map.Entry<String, ChannelCounters> entry : playerTraffic.channels.entrySet()) {
+            MapTag counters = new MapTag();
+            counters.putObject("received", new ElementTag(entry.getValue().received));
+            counters.putObject("throttled", new ElementTag(entry.getValue().throttled));
+            counters.putObject("dropped", new ElementTag(entry.getValue().dropped));
+            result.putObject(entry.getKey(), counters);
+        }
+        return result;
+    }
+}
@@ -1,10 +1,21 @@
 package com.denizenscript.depenizen.bukkit.clientizen.network;
 
 import com.denizenscript.depenizen.bukkit.networking.PacketOut;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 public abstract class ClientizenPacketOut extends PacketOut {
 
     public final String channel = NetworkManager.channel(getName());
 
     public abstract String getName();
+
+    /**
+     * Serializes the packet into a new array. To send the same packet to several players, use {@link EncodedClientizenPacket} to only do this once.
+     */
+    public byte[] encode() {
+        ByteBuf buf = Unpooled.buffer();
+        writeTo(buf);
+        return NetworkManager.bufToBytes(buf);
+    }
 }
@@ -0,0 +1,21 @@
+package com.denizenscript.depenizen.bukkit.clientizen.network;
+
+/**
+ * A packet serialized once, to be sent as-is to any number of players.
+ * The data is shared with every plugin message it's sent in, so it must never be modified.
+ */
+public final class EncodedClientizenPacket {
+
+    public EncodedClientizenPacket(ClientizenPacketOut packet) {
+        this.channel = packet.channel;
+        this.data = packet.encode();
+    }
+
+    public final String channel;
+
+    private final byte[] data;
+
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -11,14 +11,19 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 public class NetworkManager implements PluginMessageListener {
 
     private static NetworkManager instance;
     private static final Map<String, ClientizenPacketIn> IN_PACKETS = new HashMap<>();
+    private static final Set<String> REGISTERED_OUT_CHANNELS = new HashSet<>();
     public static final String CHANNEL_NAMESPACE = "clientizen";
 
     public static final int MAX_PACKET_LENGTH = Depenizen.instance.getConfig().getInt("Clientizen.max packet length", 10000);
@@ -41,19 +46,68 @@ public class NetworkManager implements PluginMessageListener {
         IN_PACKETS.put(channel, packet);
     }
 
+    /**
+     * Sends a packet to every player running Clientizen, encoding it only once.
+     */
     public static void broadcast(ClientizenPacketOut packet) {
+        broadcast(player -> true, packet);
+    }
+
+    /**
+     * Sends a packet to every player running Clientizen that matches, encoding it only once.
+     */
+    public static void broadcast(Predicate<Player> matcher, ClientizenPacketOut packet) {
+        EncodedClientizenPacket encoded = null;
         for (UUID uuid : ClientizenBridge.clientizenPlayers) {
-            send(Bukkit.getPlayer(uuid), packet);
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null || !matcher.test(player)) {
+                continue;
+            }
+            if (encoded == null) {
+                encoded = new EncodedClientizenPacket(packet);
+            }
+            send(player, encoded);
+        }
+    }
+
+    /**
+     * Sends a packet to each of the given players, encoding it only once.
+     */
+    public static void broadcast(Collection<? extends Player> targets, ClientizenPacketOut packet) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        EncodedClientizenPacket encoded = new EncodedClientizenPacket(packet);
+        for (Player target : targets) {
+            send(target, encoded);
         }
     }
 
     public static void send(Player target, ClientizenPacketOut packet) {
-        if (!Bukkit.getMessenger().isOutgoingChannelRegistered(Depenizen.instance, packet.channel)) {
-            Bukkit.getMessenger().registerOutgoingPluginChannel(Depenizen.instance, packet.channel);
+        if (target == null) {
+            return;
         }
-        ByteBuf buf = Unpooled.buffer();
-        packet.writeTo(buf);
-        target.sendPluginMessage(Depenizen.instance, packet.channel, bufToBytes(buf));
+        send(target, packet.channel, packet.encode());
+    }
+
+    public static void send(Player target, EncodedClientizenPacket packet) {
+        if (target == null) {
+            return;
+        }
+        send(target, packet.channel, packet.getData());
+    }
+
+    private static void send(Player target, String channel, byte[] data) {
+        if (!target.isOnline()) {
+            return;
+        }
+        if (!REGISTERED_OUT_CHANNELS.contains(channel)) {
+            if (!Bukkit.getMessenger().isOutgoingChannelRegistered(Depenizen.instance, channel)) {
+                Bukkit.getMessenger().registerOutgoingPluginChannel(Depenizen.instance, channel);
+            }
+            REGISTERED_OUT_CHANNELS.add(channel);
+        }
+        target.sendPluginMessage(Depenizen.instance, channel, data);
     }
 
     public static byte[] bufToBytes(ByteBuf buf) {
@@ -64,6 +118,10 @@ public class NetworkManager implements PluginMessageListener {
     public void onPluginMessageReceived(@NotNull String channel, @NotNull Player player, @NotNull byte[] message) {
         if (message.length > MAX_PACKET_LENGTH) {
             Debug.log("Packet with length " + message.length + " received from " + player.getName() + ", which exceeds the maximum packet length of " + MAX_PACKET_LENGTH + " - ignoring.");
+            ClientizenInbox.countDropped(player, channel);
+            return;
+        }
+        if (!ClientizenInbox.tryAccept(player, channel)) {
             return;
         }
         IN_PACKETS.get(channel).process(player, Unpooled.wrappedBuffer(message));
@@ -0,0 +1,111 @@
+package com.denizenscript.depenizen.bukkit.clientizen.network;
+
+import com.denizenscript.depenizen.bukkit.Depenizen;
+import com.denizenscript.depenizen.bukkit.clientizen.network.packets.ScriptsChunkPacketOut;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Sends compressed script payloads to clients a chunk at a time, spread over several ticks so a reload doesn't flood every connection at once.
+ * Both each player and all players together have a per-tick byte budget.
+ */
+public class ScriptsChunkSender {
+
+    public static final int CHUNK_SIZE = Math.max(1024, Depenizen.instance.getConfig().getInt("Clientizen.chunk size", 30000));
+
+    public static final int BYTES_PER_TICK = Math.max(CHUNK_SIZE, Depenizen.instance.getConfig().getInt("Clientizen.chunk bytes per tick", 64 * 1024));
+
+    public static final int TOTAL_BYTES_PER_TICK = Math.max(CHUNK_SIZE, Depenizen.instance.getConfig().getInt("Clientizen.total chunk bytes per tick", 256 * 1024));
+
+    public static class OutgoingPayload {
+
+        public int id;
+
+        public ScriptsPayloadPacketOut packet;
+
+        public byte[] compressed;
+
+        public int offset;
+    }
+
+    /**
+     * In the order players are served, see {@link #tick()}.
+     */
+    public static final LinkedHashMap<UUID, ArrayDeque<OutgoingPayload>> pending = new LinkedHashMap<>();
+
+    private static int nextPayloadId = 0;
+
+    public static void init() {
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(Depenizen.instance, ScriptsChunkSender::tick, 1, 1);
+    }
+
+    /**
+     * Queues a payload for the player, after anything already queued for them.
+     */
+    public static void send(Player player, ScriptsPayloadPacketOut packet) {
+        OutgoingPayload payload = new OutgoingPayload();
+        payload.id = nextPayloadId++;
+        payload.packet = packet;
+        payload.compressed = packet.getCompressed();
+        pending.computeIfAbsent(player.getUniqueId(), k -> new ArrayDeque<>()).add(payload);
+    }
+
+    public static void cancel(UUID player) {
+        pending.remove(player);
+    }
+
+    /**
+     * Sends one chunk to each player in turn, until every player has used up their own budget or the total budget for the tick is used up.
+     * When the total budget runs out, players that were served go to the back of the line, so the others go first next tick.
+     */
+    public static void tick() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        int total = TOTAL_BYTES_PER_TICK;
+        Map<UUID, Integer> budgets = new HashMap<>();
+        Set<UUID> served = new LinkedHashSet<>();
+        boolean sentAny = true;
+        while (total > 0 && sentAny) {
+            sentAny = false;
+            Iterator<Map.Entry<UUID, ArrayDeque<OutgoingPayload>>> iterator = pending.entrySet().iterator();
+            while (total > 0 && iterator.hasNext()) {
+                Map.Entry<UUID, ArrayDeque<OutgoingPayload>> entry = iterator.next();
+                Player player = Bukkit.getPlayer(entry.getKey());
+                if (player == null) {
+                    iterator.remove();
+                    continue;
+                }
+                int budget = budgets.getOrDefault(entry.getKey(), BYTES_PER_TICK);
+                if (budget <= 0) {
+                    continue;
+                }
+                ArrayDeque<OutgoingPayload> queue = entry.getValue();
+                OutgoingPayload payload = queue.peek();
+                int length = Math.min(CHUNK_SIZE, payload.compressed.length - payload.offset);
+                NetworkManager.send(player, new ScriptsChunkPacketOut(payload.id, payload.packet.getName(), payload.packet.getLength(), payload.compressed, payload.offset, length));
+                payload.offset += length;
+                budgets.put(entry.getKey(), budget - length);
+                total -= length;
+                sentAny = true;
+                served.add(entry.getKey());
+                if (payload.offset >= payload.compressed.length) {
+                    queue.poll();
+                    if (queue.isEmpty()) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        if (total <= 0) {
+            for (UUID uuid : served) {
+                ArrayDeque<OutgoingPayload> queue = pending.remove(uuid);
+                if (queue != null) {
+                    pending.put(uuid, queue);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.denizenscript.depenizen.bukkit.clientizen.network;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * A packet carrying client script data, encoded once up front so it can be sent to many players.
+ * Clients that support it receive the data compressed and split into chunks instead, see {@link ScriptsChunkSender}.
+ */
+public abstract class ScriptsPayloadPacketOut extends ClientizenPacketOut {
+
+    protected byte[] data;
+
+    private byte[] compressed;
+
+    public int getLength() {
+        return data.length;
+    }
+
+    /**
+     * Returns the deflated data, compressing it on first use only.
+     */
+    public byte[] getCompressed() {
+        if (compressed == null) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            deflater.end();
+            compressed = output.toByteArray();
+        }
+        return compressed;
+    }
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeBytes(data);
+    }
+
+    @Override
+    public byte[] encode() {
+        // Already encoded, and never modified after construction
+        return data;
+    }
+}
@@ -1,8 +1,12 @@
 package com.denizenscript.depenizen.bukkit.clientizen.network.packets;
 
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
 import com.denizenscript.depenizen.bukkit.Depenizen;
 import com.denizenscript.depenizen.bukkit.clientizen.ClientizenEventScriptEvent;
+import com.denizenscript.depenizen.bukkit.clientizen.network.ClientizenInbox;
 import com.denizenscript.depenizen.bukkit.clientizen.network.ClientizenPacketIn;
+import com.denizenscript.depenizen.bukkit.clientizen.network.NetworkManager;
 import io.netty.buffer.ByteBuf;
 import org.bukkit.entity.Player;
 
@@ -12,15 +16,23 @@ public class FireEventPacketIn extends ClientizenPacketIn {
 
     public static final boolean ENABLED = Depenizen.instance.getConfig().getBoolean("Clientizen.process events");
 
+    public final String channel = NetworkManager.channel(getName());
+
     @Override
     public void process(Player sender, ByteBuf data) {
         if (ENABLED && ClientizenEventScriptEvent.instance.eventData.isEnabled) {
-            String id = readString(data, "Event ID");
-            Map<String, String> contexts = readStringMap(data);
-            if (id == null || contexts == null) {
-                return;
-            }
-            ClientizenEventScriptEvent.instance.fire(sender, id, contexts);
+            ClientizenInbox.decode(sender, channel, data.readableBytes(), () -> {
+                String id = readString(data, "Event ID");
+                Map<String, String> contexts = readStringMap(data);
+                if (id == null || contexts == null) {
+                    return null;
+                }
+                MapTag contextMap = new MapTag();
+                for (Map.Entry<String, String> entry : contexts.entrySet()) {
+                    contextMap.putObject(entry.getKey(), new ElementTag(entry.getValue()));
+                }
+                return () -> ClientizenEventScriptEvent.instance.fire(sender, id, contextMap);
+            });
         }
     }
 
@@ -5,11 +5,23 @@ import com.denizenscript.depenizen.bukkit.clientizen.network.ClientizenPacketIn;
 import io.netty.buffer.ByteBuf;
 import org.bukkit.entity.Player;
 
+import java.util.Map;
+
 public class ReceiveConfirmationPacketIn extends ClientizenPacketIn {
 
     @Override
     public void process(Player sender, ByteBuf data) {
-        ClientizenBridge.acceptNewPlayer(sender);
+        // Older clients send nothing, newer ones send the hashes of the client scripts they have cached, optionally followed by their capability flags
+        if (!data.isReadable()) {
+            ClientizenBridge.acceptNewPlayer(sender, null, 0);
+            return;
+        }
+        Map<String, String> cachedHashes = readStringMap(data);
+        if (cachedHashes == null) {
+            return;
+        }
+        int capabilities = data.readableBytes() >= 4 ? data.readInt() : 0;
+        ClientizenBridge.acceptNewPlayer(sender, cachedHashes, capabilities);
     }
 
     @Override
@@ -0,0 +1,42 @@
+package com.denizenscript.depenizen.bukkit.clientizen.network.packets;
+
+import com.denizenscript.depenizen.bukkit.clientizen.network.ClientizenPacketOut;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * One piece of a compressed script payload. The client reassembles the pieces, inflates them, and handles the result as if it was received on the target channel.
+ */
+public class ScriptsChunkPacketOut extends ClientizenPacketOut {
+
+    public ScriptsChunkPacketOut(int payloadId, String target, int uncompressedLength, byte[] compressed, int offset, int length) {
+        this.payloadId = payloadId;
+        this.target = target;
+        this.uncompressedLength = uncompressedLength;
+        this.compressed = compressed;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    int payloadId;
+    String target;
+    int uncompressedLength;
+    byte[] compressed;
+    int offset;
+    int length;
+
+    @Override
+    public void writeTo(ByteBuf buf) {
+        buf.writeInt(payloadId);
+        writeString(buf, target);
+        buf.writeInt(uncompressedLength);
+        buf.writeInt(compressed.length);
+        buf.writeInt(offset);
+        buf.writeInt(length);
+        buf.writeBytes(compressed, offset, length);
+    }
+
+    @Override
+    public String getName() {
+        return "scripts_chunk";
+    }
+}
@@ -0,0 +1,56 @@
+package com.denizenscript.depenizen.bukkit.clientizen.network.packets;
+
+import com.denizenscript.depenizen.bukkit.clientizen.network.NetworkManager;
+import com.denizenscript.depenizen.bukkit.clientizen.network.ScriptsPayloadPacketOut;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings a client's cached client scripts up to date, sending only the files that were added, changed or removed.
+ */
+public class UpdateScriptsPacketOut extends ScriptsPayloadPacketOut {
+
+    /**
+     * @param knownHashes the script hashes the client currently has.
+     * @param scripts the current script contents.
+     * @param hashes the current script hashes.
+     */
+    public UpdateScriptsPacketOut(Map<String, String> knownHashes, Map<String, String> scripts, Map<String, String> hashes) {
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            if (!entry.getValue().equals(knownHashes.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String name : knownHashes.keySet()) {
+            if (!hashes.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+        isEmpty = changed.isEmpty() && removed.isEmpty();
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(changed.size());
+        for (String name : changed) {
+            writeString(buf, name);
+            writeString(buf, hashes.get(name));
+            writeString(buf, scripts.get(name));
+        }
+        buf.writeInt(removed.size());
+        for (String name : removed) {
+            writeString(buf, name);
+        }
+        this.data = NetworkManager.bufToBytes(buf);
+    }
+
+    public final boolean isEmpty;
+
+    @Override
+    public String getName() {
+        return "update_scripts";
+    }
+}
@@ -3,8 +3,10 @@ package com.denizenscript.depenizen.bukkit.commands.bungee;
 import com.denizenscript.denizencore.objects.Argument;
 import com.denizenscript.denizencore.utilities.text.StringHolder;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeCommandCache;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.KeepAlivePacketOut;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunCachedCommandsPacketOut;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunCommandsPacketOut;
 import com.denizenscript.denizen.utilities.Utilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
@@ -14,6 +16,7 @@ import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.BracedCommand;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -40,9 +43,14 @@ public class BungeeCommand extends BracedCommand {
     // Tags will be parsed on the remote server, but definitions from the originating queue will be used.
     // The linked player will be available on the remote server if that server has ever seen the player.
     // Generally, prefer <@link command BungeeRun>.
+    // Specify '*' as the server to run the commands on every server on the network.
+    //
+    // If the "Bungee.command cache" config option is enabled, a block that already ran on a server is sent as just a hash of its content,
+    // and the remote server reuses its compiled copy. This requires every server on the network to have that support.
     //
     // @Tags
     // <bungee.list_servers>
+    // <bungee.command_cache_stats>
     //
     // @Usage
     // Use to run a simple announce command on another server;
@@ -75,7 +83,7 @@ public class BungeeCommand extends BracedCommand {
         if (scriptEntry.dbCallShouldDebug()) {
             Debug.report(scriptEntry, getName(), servers);
         }
-        if (!BungeeBridge.instance.connected) {
+        if (!BungeeBridge.instance.connected && !BungeeBridge.instance.offlineQueue.isEnabled()) {
             Debug.echoError("Cannot Bungee command: bungee is not connected!");
             return;
         }
@@ -84,26 +92,53 @@ public class BungeeCommand extends BracedCommand {
             Debug.echoError("Empty subsection - did you forget a ':'?");
             return;
         }
-        StringBuilder toSend = new StringBuilder();
-        for (ScriptEntry entry : bracedCommandsList) {
-            toSend.append(stringify(entry)).append("\n");
-        }
-        StringBuilder defNames = new StringBuilder();
-        StringBuilder defValues = new StringBuilder();
-        for (Map.Entry<StringHolder, ObjectTag> def : scriptEntry.getResidingQueue().getAllDefinitions().entrySet()) {
-            defNames.append(escape(def.getKey().low)).append("\n");
-            defValues.append(escape(def.getValue().toString())).append("\n");
+        BungeeCommandCache cache = BungeeBridge.instance.commandCache;
+        BungeeCommandCache.Block block = cache.blocks.get(scriptEntry.internal);
+        if (block == null || !cache.enabled) {
+            StringBuilder toSend = new StringBuilder();
+            for (ScriptEntry entry : bracedCommandsList) {
+                toSend.append(stringify(entry)).append("\n");
+            }
+            block = new BungeeCommandCache.Block(cache.enabled ? BungeeCommandCache.hash(toSend.toString(), scriptEntry.shouldDebug()) : null, toSend.toString());
+            if (cache.enabled) {
+                cache.blocks.put(scriptEntry.internal, block);
+            }
         }
-        RunCommandsPacketOut packetScript = new RunCommandsPacketOut(toSend.toString(),
-                defNames + "\r" + defValues, scriptEntry.shouldDebug(),
-                Utilities.entryHasPlayer(scriptEntry) ?
+        UUID playerUUID = Utilities.entryHasPlayer(scriptEntry) ?
                 Utilities.getEntryPlayer(scriptEntry).getUUID()
-                : new UUID(0, 0));
-        for (String server : servers) {
-            RedirectPacketOut packet = new RedirectPacketOut(server, packetScript);
-            BungeeBridge.instance.sendPacket(packet);
-            BungeeBridge.instance.sendPacket(new KeepAlivePacketOut());
+                : new UUID(0, 0);
+        Map<String, ObjectTag> defs = getDefinitions(scriptEntry);
+        if (cache.enabled) {
+            // Each server may or may not have the block already, so these can't share one encoded packet
+            for (String server : servers.contains(BungeeBridge.ALL_SERVERS) ? BungeeBridge.instance.knownServers : servers) {
+                RunCachedCommandsPacketOut packet = new RunCachedCommandsPacketOut();
+                packet.serverName = BungeeBridge.instance.serverName;
+                packet.requestId = cache.nextRequestId++;
+                packet.key = block.key();
+                packet.commands = cache.markSent(server, block.key()) ? null : block.commands();
+                packet.defs = defs;
+                packet.shouldDebug = scriptEntry.shouldDebug();
+                packet.playerUUID = playerUUID;
+                if (packet.commands == null) {
+                    cache.recentRuns.put(packet.requestId, new BungeeCommandCache.PendingRun(server, packet, block.commands()));
+                }
+                BungeeBridge.instance.sendPacket(new RedirectPacketOut(server, packet));
+            }
+            if (BungeeBridge.instance.connected) {
+                BungeeBridge.instance.sendPacket(new KeepAlivePacketOut());
+            }
+            return;
+        }
+        RunCommandsPacketOut packetScript = new RunCommandsPacketOut(block.commands(), defs, scriptEntry.shouldDebug(), playerUUID);
+        BungeeBridge.instance.sendToServers(servers, packetScript);
+    }
+
+    public static Map<String, ObjectTag> getDefinitions(ScriptEntry scriptEntry) {
+        Map<String, ObjectTag> defs = new LinkedHashMap<>();
+        for (Map.Entry<StringHolder, ObjectTag> def : scriptEntry.getResidingQueue().getAllDefinitions().entrySet()) {
+            defs.put(def.getKey().low, def.getValue());
         }
+        return defs;
     }
 
     public static String escape(String text) {
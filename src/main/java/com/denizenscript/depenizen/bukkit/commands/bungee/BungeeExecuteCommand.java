@@ -45,7 +45,7 @@ public class BungeeExecuteCommand extends AbstractCommand {
 
     public static void autoExecute(@ArgLinear @ArgName("command") String command,
                             @ArgPrefixed @ArgName("as") @ArgDefaultNull String asPlayer) {
-        if (!BungeeBridge.instance.connected) {
+        if (!BungeeBridge.instance.connected && !BungeeBridge.instance.offlineQueue.isEnabled()) {
             Debug.echoError("Cannot BungeeExecute: bungee is not connected!");
             return;
         }
@@ -64,6 +64,8 @@ public class BungeeExecuteCommand extends AbstractCommand {
             packet = new ExecutePlayerCommandPacketOut(asPlayer, command);
         }
         BungeeBridge.instance.sendPacket(packet);
-        BungeeBridge.instance.sendPacket(new KeepAlivePacketOut());
+        if (BungeeBridge.instance.connected) {
+            BungeeBridge.instance.sendPacket(new KeepAlivePacketOut());
+        }
     }
 }
@@ -0,0 +1,61 @@
+package com.denizenscript.depenizen.bukkit.commands.bungee;
+
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
+import com.denizenscript.denizencore.scripts.commands.generator.ArgLinear;
+import com.denizenscript.denizencore.scripts.commands.generator.ArgName;
+import com.denizenscript.denizencore.scripts.commands.generator.ArgPrefixed;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.denizencore.utilities.debugging.Debug;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+
+public class BungeePublishCommand extends AbstractCommand {
+
+    public BungeePublishCommand() {
+        setName("bungeepublish");
+        setSyntax("bungeepublish [topic:<topic>] [<message>]");
+        setRequiredArguments(2, 2);
+        autoCompile();
+    }
+
+    // <--[command]
+    // @Name BungeePublish
+    // @Syntax bungeepublish [topic:<topic>] [<message>]
+    // @Group Depenizen
+    // @Plugin Depenizen, DepenizenBungee, BungeeCord
+    // @Required 2
+    // @Maximum 2
+    // @Short Publishes a message to other servers listening on a topic.
+    //
+    // @Description
+    // Publishes a message to every other server on the Bungee network that has a <@link event bungee message> event for the topic.
+    // This is much lighter than <@link command BungeeRun>: the receiving server does not need a task script or a new queue, so it's suitable for frequent small messages like chat relays or shared counters.
+    //
+    // The message can be any object, lists and maps keep their structure.
+    // Topics are case-insensitive.
+    //
+    // Messages are not queued while the Bungee connection is down, publishing while disconnected does nothing.
+    // Requires a DepenizenBungee version that supports topics, servers only receive messages through the proxy.
+    //
+    // @Tags
+    // None
+    //
+    // @Usage
+    // Use to relay a chat message to other servers.
+    // - bungeepublish topic:chat "<map[player=<player.name>;message=<context.message>]>"
+    //
+    // -->
+
+    public static void autoExecute(@ArgPrefixed @ArgName("topic") String topic,
+                                   @ArgLinear @ArgName("message") ObjectTag message) {
+        if (!BungeeBridge.instance.connected) {
+            Debug.echoError("Cannot BungeePublish: bungee is not connected!");
+            return;
+        }
+        if (!BungeeBridge.instance.proxySupports(BungeeBridge.FEATURE_TOPICS)) {
+            Debug.echoError("Cannot BungeePublish: the Bungee proxy does not support topics, update DepenizenBungee.");
+            return;
+        }
+        BungeeBridge.instance.publish(CoreUtilities.toLowerCase(topic), message);
+    }
+}
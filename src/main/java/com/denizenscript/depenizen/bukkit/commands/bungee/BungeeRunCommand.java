@@ -8,46 +8,78 @@ import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunScr
 import com.denizenscript.denizen.utilities.Utilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 import com.denizenscript.denizencore.exceptions.InvalidArgumentsException;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.DurationTag;
 import com.denizenscript.denizencore.objects.core.ElementTag;
 import com.denizenscript.denizencore.objects.core.ListTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
 import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
+import com.denizenscript.denizencore.scripts.commands.Holdable;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
-public class BungeeRunCommand extends AbstractCommand {
+public class BungeeRunCommand extends AbstractCommand implements Holdable {
 
     public BungeeRunCommand() {
         setName("bungeerun");
-        setSyntax("bungeerun [<server>|...] [<script name>] (def:<definition>|...)");
-        setRequiredArguments(2, 3);
+        setSyntax("bungeerun [<server>|...] [<script name>] (def:<definition>|...) (timeout:<duration>)");
+        setRequiredArguments(2, 4);
     }
 
     // <--[command]
     // @Name BungeeRun
-    // @Syntax bungeerun [<server>|...] [<script name>] (def:<definition>|...)
+    // @Syntax bungeerun [<server>|...] [<script name>] (def:<definition>|...) (timeout:<duration>)
     // @Group Depenizen
     // @Plugin Depenizen, DepenizenBungee, BungeeCord
     // @Required 2
-    // @Maximum 3
+    // @Maximum 4
     // @Short Runs a task script on another server.
     //
     // @Description
     // This command runs a task on another server on the Bungee network. Works similarly to the 'run' command.
     //
+    // Specify '*' as the server to run the task on every server on the network.
+    //
+    // If this server is not currently connected to the proxy, the request is held and sent once reconnected (see the "Bungee.offline queue size" config option).
+    //
+    // The command may be ~waited for, in which case the queue waits until the remote queue finishes, and its determinations are returned.
+    // If the remote server doesn't respond within the timeout (defaults to the "Bungee.run timeout" config option), the queue will continue without a result.
+    //
     // @Tags
+    // <entry[saveName].result> returns a ListTag of the remote queue's determinations, when ~waited for. When run on multiple servers, returns a MapTag of server names to determination lists.
+    // <entry[saveName].timed_out> returns 'true' if a remote server did not respond in time.
     // <bungee.list_servers>
+    // <bungee.offline_queue_size>
     //
     // @Usage
     // Use to run a simple task on another server.
     // - bungeerun lobby my_script def:32
     //
+    // @Usage
+    // Use to run a task on every server.
+    // - bungeerun * reload_shop_prices
+    //
+    // @Usage
+    // Use to get a result back from a task on another server.
+    // - ~bungeerun lobby get_top_score def:<player> save:score
+    // - narrate "Your lobby high score is <entry[score].result.first>"
+    //
     // -->
 
     @Override
     public void parseArgs(ScriptEntry scriptEntry) throws InvalidArgumentsException {
         for (Argument arg : scriptEntry) {
-            if (!scriptEntry.hasObject("def")
+            if (!scriptEntry.hasObject("timeout")
+                    && arg.matchesPrefix("timeout")
+                    && arg.matchesArgumentType(DurationTag.class)) {
+                scriptEntry.addObject("timeout", arg.asType(DurationTag.class));
+            }
+            else if (!scriptEntry.hasObject("def")
                     && arg.matchesPrefix("def")) {
                 scriptEntry.addObject("def", arg.asElement());
             }
@@ -70,27 +102,128 @@ public class BungeeRunCommand extends AbstractCommand {
         scriptEntry.defaultObject("def", new ElementTag(""));
     }
 
+    public static class PendingRun {
+
+        public ScriptEntry entry;
+
+        public long deadline;
+
+        /**
+         * The server each request ID was sent to, for runs on multiple servers. Null for a single server.
+         */
+        public Map<Integer, String> servers;
+
+        public MapTag results;
+
+        public int remaining;
+
+        public boolean finished = false;
+
+        public void finish(ObjectTag result, boolean timedOut) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (result != null) {
+                entry.saveObject("result", result);
+            }
+            entry.saveObject("timed_out", new ElementTag(timedOut));
+            entry.setFinished(true);
+        }
+    }
+
+    public static Map<Integer, PendingRun> waitingEntries = new HashMap<>();
+
+    public static int currentId = 1;
+
+    public static void handleResponse(int id, boolean success, String result) {
+        PendingRun run = waitingEntries.remove(id);
+        if (run == null) {
+            return;
+        }
+        ListTag determinations = success ? ListTag.valueOf(result, CoreUtilities.basicContext) : new ListTag();
+        if (run.servers == null) {
+            run.finish(determinations, false);
+            return;
+        }
+        run.results.putObject(run.servers.get(id), determinations);
+        run.remaining--;
+        if (run.remaining <= 0) {
+            run.finish(run.results, false);
+        }
+    }
+
+    public static void checkTimeouts() {
+        if (waitingEntries.isEmpty()) {
+            return;
+        }
+        long now = CoreUtilities.monotonicMillis();
+        waitingEntries.values().removeIf(run -> {
+            if (run.finished) {
+                return true;
+            }
+            if (now < run.deadline) {
+                return false;
+            }
+            Debug.echoError("BungeeRun timed out waiting for the remote queue to finish.");
+            run.finish(run.results, true);
+            return true;
+        });
+    }
+
     @Override
     public void execute(ScriptEntry scriptEntry) {
         ElementTag def = scriptEntry.getElement("def");
         ListTag servers = scriptEntry.getObjectTag("servers");
         ElementTag scriptName = scriptEntry.getElement("script_name");
+        DurationTag timeout = scriptEntry.getObjectTag("timeout");
         if (scriptEntry.dbCallShouldDebug()) {
-            Debug.report(scriptEntry, getName(), def, servers, scriptName);
+            Debug.report(scriptEntry, getName(), def, servers, scriptName, timeout);
         }
-        if (!BungeeBridge.instance.connected) {
+        if (!BungeeBridge.instance.connected && !BungeeBridge.instance.offlineQueue.isEnabled()) {
             Debug.echoError("Cannot BungeeRun: bungee is not connected!");
+            scriptEntry.setFinished(true);
             return;
         }
-        RunScriptPacketOut packetScript = new RunScriptPacketOut();
-        packetScript.playerUUID = Utilities.entryHasPlayer(scriptEntry) ?
+        UUID playerUUID = Utilities.entryHasPlayer(scriptEntry) ?
                 Utilities.getEntryPlayer(scriptEntry).getUUID()
                 : new UUID(0, 0);
-        packetScript.scriptName = scriptName.asString();
-        packetScript.defs = def.asString();
-        for (String server : servers) {
-            RedirectPacketOut packet = new RedirectPacketOut(server, packetScript);
-            BungeeBridge.instance.sendPacket(packet);
+        if (!scriptEntry.shouldWaitFor()) {
+            RunScriptPacketOut packetScript = new RunScriptPacketOut();
+            packetScript.playerUUID = playerUUID;
+            packetScript.scriptName = scriptName.asString();
+            packetScript.defs = def.asString();
+            BungeeBridge.instance.sendToServers(servers, packetScript);
+            return;
+        }
+        // Each server needs its own response ID, so waited runs are sent separately
+        List<String> targets = servers.contains(BungeeBridge.ALL_SERVERS) ? BungeeBridge.instance.knownServers : servers;
+        PendingRun run = new PendingRun();
+        run.entry = scriptEntry;
+        run.deadline = CoreUtilities.monotonicMillis() + (timeout == null ? BungeeBridge.instance.runTimeoutMillis : timeout.getMillis());
+        if (targets.size() != 1) {
+            run.servers = new HashMap<>();
+            run.results = new MapTag();
+            run.remaining = targets.size();
+            if (targets.isEmpty()) {
+                run.finish(run.results, false);
+                return;
+            }
+        }
+        for (String server : targets) {
+            RunScriptPacketOut packetScript = new RunScriptPacketOut();
+            packetScript.playerUUID = playerUUID;
+            packetScript.scriptName = scriptName.asString();
+            packetScript.defs = def.asString();
+            packetScript.responseServer = BungeeBridge.instance.serverName;
+            packetScript.responseId = currentId++;
+            if (run.servers != null) {
+                run.servers.put(packetScript.responseId, server);
+            }
+            waitingEntries.put(packetScript.responseId, run);
+            BungeeBridge.instance.sendPacket(new RedirectPacketOut(server, packetScript));
+        }
+        if (BungeeBridge.instance.connected) {
             BungeeBridge.instance.sendPacket(new KeepAlivePacketOut());
         }
     }
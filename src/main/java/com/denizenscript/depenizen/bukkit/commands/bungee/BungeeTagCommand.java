@@ -1,10 +1,14 @@
 package com.denizenscript.depenizen.bukkit.commands.bungee;
 
-import com.denizenscript.denizencore.utilities.text.StringHolder;
+import com.denizenscript.denizencore.objects.core.DurationTag;
+import com.denizenscript.denizencore.objects.core.ListTag;
+import com.denizenscript.denizencore.objects.core.MapTag;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeTagCache;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.KeepAlivePacketOut;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
 import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.ReadTagPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.ReadTagsPacketOut;
 import com.denizenscript.denizen.utilities.Utilities;
 import com.denizenscript.denizencore.exceptions.InvalidArgumentsException;
 import com.denizenscript.denizencore.objects.core.ElementTag;
@@ -13,28 +17,27 @@ import com.denizenscript.denizencore.scripts.ScriptEntry;
 import com.denizenscript.denizencore.scripts.commands.AbstractCommand;
 import com.denizenscript.denizencore.scripts.commands.Holdable;
 import com.denizenscript.denizencore.tags.TagManager;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.denizencore.utilities.debugging.Debug;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.*;
 
 public class BungeeTagCommand extends AbstractCommand implements Holdable {
 
     public BungeeTagCommand() {
         setName("bungeetag");
-        setSyntax("bungeetag [server:<server>] [<tags>]");
-        setRequiredArguments(2, 2);
+        setSyntax("bungeetag [server:<server>] [<tags>/tag.<key>:<tags>...] (timeout:<duration>) (cache:<duration>)");
+        setRequiredArguments(2, -1);
         setParseArgs(false);
     }
 
     // <--[command]
     // @Name BungeeTag
-    // @Syntax bungeetag [server:<server>] [<tags>]
+    // @Syntax bungeetag [server:<server>] [<tags>/tag.<key>:<tags>...] (timeout:<duration>) (cache:<duration>)
     // @Group Depenizen
     // @Plugin Depenizen, DepenizenBungee, BungeeCord
     // @Required 2
-    // @Maximum 2
+    // @Maximum -1
     // @Short Parses tags on another server on a Bungee network and returns the results for this server to process.
     //
     // @Description
@@ -45,38 +48,85 @@ public class BungeeTagCommand extends AbstractCommand implements Holdable {
     // when then gets sent back and allows the command to complete.
     //
     // Tags will be parsed on the remote server, but definitions from the originating queue will be used.
+    // If the "Bungee.referenced definitions only" config option is enabled, only definitions the tag refers to by name will be sent.
     // The linked player will be available on the remote server if that server has ever seen the player.
     //
+    // To read multiple values in a single round trip, instead of a single tag input, specify any number of "tag.<key>:<tags>" arguments.
+    // The result will then be a MapTag of each key to its parsed value.
+    //
+    // Optionally specify "cache:<duration>" to reuse results for that long.
+    // A cached result is returned immediately, without contacting the remote server.
+    // Results are cached per server, tag text and linked player. Definitions are not part of the cache key, so avoid caching tags that depend on definitions.
+    // The cache size is limited by the "Bungee.tag cache size" config option.
+    //
     // This command must be held with the '~' prefix. The queue will then wait for the result.
+    // If the remote server doesn't respond within the timeout (defaults to the "Bungee.tag timeout" config option), the queue will continue without a result.
     //
     // @Tags
-    // <entry[saveName].result> returns the result of the parsed tag.
+    // <entry[saveName].result> returns the result of the parsed tag (or a MapTag of results, if multiple tags were given).
+    // <entry[saveName].timed_out> returns 'true' if the remote server did not respond in time. For multiple tags, any results that did arrive will still be available.
     // <bungee.list_servers>
+    // <bungee.pending_tag_requests>
+    // <bungee.tag_cache_stats>
     //
     // @Usage
     // Use to read a simple tag from another server.
     // - ~bungeetag server:lobby <server.motd> save:motd
     // - narrate "The lobby's MOTD is <entry[motd].result>"
     //
+    // @Usage
+    // Use to read the lobby's player count, reusing the result for up to 5 seconds.
+    // - ~bungeetag server:lobby <server.online_players.size> cache:5s save:count
+    // - narrate "The lobby has <entry[count].result> players online"
+    //
+    // @Usage
+    // Use to read multiple tags from another server at once.
+    // - ~bungeetag server:lobby tag.motd:<server.motd> tag.online:<server.online_players.size> save:lobby
+    // - narrate "The lobby has <entry[lobby].result.get[online]> players online, with MOTD <entry[lobby].result.get[motd]>"
+    //
     // -->
 
     @Override
     public void parseArgs(ScriptEntry scriptEntry) throws InvalidArgumentsException {
-
+        Map<String, String> tags = new LinkedHashMap<>();
         for (String arg : scriptEntry.getOriginalArguments()) {
             if (!scriptEntry.hasObject("server")
                     && arg.startsWith("server:")) {
                 scriptEntry.addObject("server", new ElementTag(TagManager.tag(arg.substring("server:".length()),
                         scriptEntry.getContext())));
             }
-            else if (!scriptEntry.hasObject("tag")) {
+            else if (!scriptEntry.hasObject("timeout")
+                    && arg.startsWith("timeout:")) {
+                DurationTag timeout = DurationTag.valueOf(TagManager.tag(arg.substring("timeout:".length()), scriptEntry.getContext()), scriptEntry.getContext());
+                if (timeout == null) {
+                    throw new InvalidArgumentsException("Invalid timeout duration '" + arg.substring("timeout:".length()) + "'.");
+                }
+                scriptEntry.addObject("timeout", timeout);
+            }
+            else if (!scriptEntry.hasObject("cache")
+                    && arg.startsWith("cache:")) {
+                DurationTag cache = DurationTag.valueOf(TagManager.tag(arg.substring("cache:".length()), scriptEntry.getContext()), scriptEntry.getContext());
+                if (cache == null) {
+                    throw new InvalidArgumentsException("Invalid cache duration '" + arg.substring("cache:".length()) + "'.");
+                }
+                scriptEntry.addObject("cache", cache);
+            }
+            else if (!scriptEntry.hasObject("tag")
+                    && arg.startsWith("tag.") && arg.indexOf(':') > "tag.".length()) {
+                int colon = arg.indexOf(':');
+                tags.put(CoreUtilities.toLowerCase(arg.substring("tag.".length(), colon)), arg.substring(colon + 1));
+            }
+            else if (!scriptEntry.hasObject("tag") && tags.isEmpty()) {
                 scriptEntry.addObject("tag", new ElementTag(arg));
             }
             else {
                 Debug.echoError('\'' + arg + "' is an unknown argument!");
             }
         }
-        if (!scriptEntry.hasObject("tag")) {
+        if (!tags.isEmpty()) {
+            scriptEntry.addObject("tags", tags);
+        }
+        else if (!scriptEntry.hasObject("tag")) {
             throw new InvalidArgumentsException("Must define a TAG to be read.");
         }
         if (!scriptEntry.hasObject("server")) {
@@ -87,48 +137,237 @@ public class BungeeTagCommand extends AbstractCommand implements Holdable {
         }
     }
 
-    public static Map<Integer, ScriptEntry> waitingEntries = new HashMap<>();
+    public static class PendingRequest {
+
+        public ScriptEntry entry;
+
+        public long deadline;
+
+        /**
+         * The result keys, for a multi-tag request. Null for a single tag.
+         */
+        public List<String> keys;
+
+        /**
+         * The tags to parse remotely, matching the key list. Keys already answered from the cache are left out of both lists.
+         */
+        public List<String> tags;
+
+        public String tag;
+
+        public MapTag results;
+
+        public String server;
+
+        public UUID playerUUID;
+
+        public long cacheMillis;
+
+        /**
+         * For multi-tag requests sent as separate packets, each tag's ID is firstId plus its index in the key list.
+         */
+        public int firstId;
+
+        public int remaining;
+
+        public boolean finished = false;
+
+        public void cacheResult(String tag, String result) {
+            if (cacheMillis > 0) {
+                BungeeBridge.instance.tagCache.put(BungeeTagCache.key(server, tag, playerUUID), result, cacheMillis);
+            }
+        }
+
+        public void finish(ObjectTag result, boolean timedOut) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (result != null) {
+                entry.saveObject("result", result);
+            }
+            entry.saveObject("timed_out", new ElementTag(timedOut));
+            entry.setFinished(true);
+        }
+    }
+
+    public static Map<Integer, PendingRequest> waitingEntries = new HashMap<>();
 
     public static int currentId = 1;
 
     public static void handleResult(int id, String result) {
-        ScriptEntry entry = waitingEntries.remove(id);
-        if (entry == null) {
+        PendingRequest request = waitingEntries.remove(id);
+        if (request == null) {
+            return;
+        }
+        if (request.keys == null) {
+            request.cacheResult(request.tag, result);
+            request.finish(new ElementTag(result), false);
+            return;
+        }
+        int index = id - request.firstId;
+        request.cacheResult(request.tags.get(index), result);
+        request.results.putObject(request.keys.get(index), new ElementTag(result));
+        request.remaining--;
+        if (request.remaining <= 0) {
+            request.finish(request.results, false);
+        }
+    }
+
+    public static void handleResults(int id, List<String> results) {
+        PendingRequest request = waitingEntries.remove(id);
+        if (request == null) {
+            return;
+        }
+        for (int i = 0; i < results.size() && i < request.keys.size(); i++) {
+            request.cacheResult(request.tags.get(i), results.get(i));
+            request.results.putObject(request.keys.get(i), new ElementTag(results.get(i)));
+        }
+        request.finish(request.results, false);
+    }
+
+    public static void checkTimeouts() {
+        if (waitingEntries.isEmpty()) {
             return;
         }
-        entry.saveObject("result", new ElementTag(result));
-        entry.setFinished(true);
+        long now = CoreUtilities.monotonicMillis();
+        waitingEntries.values().removeIf(request -> {
+            if (request.finished) {
+                return true;
+            }
+            if (now < request.deadline) {
+                return false;
+            }
+            Debug.echoError("BungeeTag timed out waiting for a response from the remote server.");
+            request.finish(request.results, true);
+            return true;
+        });
+    }
+
+    public static int countPendingRequests() {
+        return new HashSet<>(waitingEntries.values()).size();
+    }
+
+    public static void filterReferencedDefinitions(String tag, Map<String, ObjectTag> defs) {
+        String tagLow = CoreUtilities.toLowerCase(tag);
+        if (tagLow.contains("<[<") || tagLow.contains("<definition[<") || tagLow.contains("queue.definition")) {
+            // Definition names built dynamically can't be predicted, so everything has to be sent
+            return;
+        }
+        defs.keySet().removeIf(name -> !referencesDefinition(tagLow, name));
+    }
+
+    public static boolean referencesDefinition(String tagLow, String name) {
+        int index = tagLow.indexOf('[' + name);
+        while (index != -1) {
+            int end = index + 1 + name.length();
+            if (end < tagLow.length() && (tagLow.charAt(end) == ']' || tagLow.charAt(end) == '.')) {
+                return true;
+            }
+            index = tagLow.indexOf('[' + name, end);
+        }
+        return false;
     }
 
     @Override
     public void execute(ScriptEntry scriptEntry) {
         ElementTag tag = scriptEntry.getElement("tag");
+        Map<String, String> tags = (Map<String, String>) scriptEntry.getObject("tags");
         ElementTag server = scriptEntry.getElement("server");
+        DurationTag timeout = scriptEntry.getObjectTag("timeout");
+        DurationTag cache = scriptEntry.getObjectTag("cache");
         if (scriptEntry.dbCallShouldDebug()) {
-            Debug.report(scriptEntry, getName(), tag, server);
+            Debug.report(scriptEntry, getName(), tag, tags == null ? null : new ListTag(tags.keySet()), server, timeout, cache);
+        }
+        UUID playerUUID = Utilities.entryHasPlayer(scriptEntry) ?
+                Utilities.getEntryPlayer(scriptEntry).getUUID()
+                : new UUID(0, 0);
+        PendingRequest request = new PendingRequest();
+        request.entry = scriptEntry;
+        request.server = server.asString();
+        request.playerUUID = playerUUID;
+        request.cacheMillis = cache == null ? 0 : cache.getMillis();
+        if (tags != null) {
+            request.keys = new ArrayList<>(tags.size());
+            request.tags = new ArrayList<>(tags.size());
+            request.results = new MapTag();
+        }
+        if (request.cacheMillis > 0) {
+            BungeeTagCache tagCache = BungeeBridge.instance.tagCache;
+            if (tags == null) {
+                String cached = tagCache.get(BungeeTagCache.key(request.server, tag.asString(), playerUUID));
+                if (cached != null) {
+                    request.finish(new ElementTag(cached), false);
+                    return;
+                }
+            }
+            else {
+                for (Map.Entry<String, String> entry : tags.entrySet()) {
+                    String cached = tagCache.get(BungeeTagCache.key(request.server, entry.getValue(), playerUUID));
+                    if (cached != null) {
+                        request.results.putObject(entry.getKey(), new ElementTag(cached));
+                    }
+                    else {
+                        request.keys.add(entry.getKey());
+                        request.tags.add(entry.getValue());
+                    }
+                }
+                if (request.keys.isEmpty()) {
+                    request.finish(request.results, false);
+                    return;
+                }
+            }
+        }
+        else if (tags != null) {
+            request.keys.addAll(tags.keySet());
+            request.tags.addAll(tags.values());
         }
         if (!BungeeBridge.instance.connected) {
             Debug.echoError("Cannot BungeeTag: bungee is not connected!");
             scriptEntry.setFinished(true);
             return;
         }
-        int newId = currentId++;
-        StringBuilder defNames = new StringBuilder();
-        StringBuilder defValues = new StringBuilder();
-        for (Map.Entry<StringHolder, ObjectTag> def : scriptEntry.getResidingQueue().getAllDefinitions().entrySet()) {
-            defNames.append(BungeeCommand.escape(def.getKey().low)).append("\n");
-            defValues.append(BungeeCommand.escape(def.getValue().toString())).append("\n");
+        Map<String, ObjectTag> defs = BungeeCommand.getDefinitions(scriptEntry);
+        if (BungeeBridge.instance.referencedDefinitionsOnly) {
+            filterReferencedDefinitions(tags == null ? tag.asString() : String.join(" ", request.tags), defs);
+        }
+        request.deadline = CoreUtilities.monotonicMillis() + (timeout == null ? BungeeBridge.instance.tagTimeoutMillis : timeout.getMillis());
+        if (tags == null) {
+            int newId = currentId++;
+            request.tag = tag.asString();
+            ReadTagPacketOut packetTag = new ReadTagPacketOut();
+            packetTag.playerUUID = playerUUID;
+            packetTag.tag = request.tag;
+            packetTag.id = newId;
+            packetTag.defs = defs;
+            BungeeBridge.instance.sendPacket(new RedirectPacketOut(request.server, packetTag));
+            waitingEntries.put(newId, request);
+        }
+        else if (BungeeBridge.instance.proxySupports(BungeeBridge.FEATURE_MULTI_TAG)) {
+            int newId = currentId++;
+            ReadTagsPacketOut packetTags = new ReadTagsPacketOut();
+            packetTags.playerUUID = playerUUID;
+            packetTags.tags = request.tags;
+            packetTags.id = newId;
+            packetTags.defs = defs;
+            BungeeBridge.instance.sendPacket(new RedirectPacketOut(request.server, packetTags));
+            waitingEntries.put(newId, request);
+        }
+        else {
+            // Pipeline one request per tag: they all go out together, and the results are collected as they arrive
+            request.firstId = currentId;
+            request.remaining = request.keys.size();
+            for (String tagText : request.tags) {
+                int newId = currentId++;
+                ReadTagPacketOut packetTag = new ReadTagPacketOut();
+                packetTag.playerUUID = playerUUID;
+                packetTag.tag = tagText;
+                packetTag.id = newId;
+                packetTag.defs = defs;
+                BungeeBridge.instance.sendPacket(new RedirectPacketOut(request.server, packetTag));
+                waitingEntries.put(newId, request);
+            }
         }
-        ReadTagPacketOut packetTag = new ReadTagPacketOut();
-        packetTag.playerUUID = Utilities.entryHasPlayer(scriptEntry) ?
-                Utilities.getEntryPlayer(scriptEntry).getUUID()
-                : new UUID(0, 0);
-        packetTag.tag = tag.asString();
-        packetTag.id = newId;
-        packetTag.defs = defNames + "\r" + defValues;
-        RedirectPacketOut packet = new RedirectPacketOut(server.asString(), packetTag);
-        BungeeBridge.instance.sendPacket(packet);
         BungeeBridge.instance.sendPacket(new KeepAlivePacketOut());
-        waitingEntries.put(newId, scriptEntry);
     }
 }
@@ -0,0 +1,99 @@
+package com.denizenscript.depenizen.bukkit.events.bungee;
+
+import com.denizenscript.denizen.utilities.implementation.BukkitScriptEntryData;
+import com.denizenscript.denizen.events.BukkitScriptEvent;
+import com.denizenscript.denizencore.objects.ObjectTag;
+import com.denizenscript.denizencore.objects.core.ElementTag;
+import com.denizenscript.denizencore.scripts.ScriptEntryData;
+import com.denizenscript.denizencore.utilities.CoreUtilities;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class BungeeMessageScriptEvent extends BukkitScriptEvent {
+
+    // <--[event]
+    // @Events
+    // bungee message
+    //
+    // @Switch topic:<topic> to only process the event for messages on a specific topic.
+    //
+    // @Triggers when a message published with <@link command BungeePublish> on a topic this server listens to arrives.
+    //
+    // @Context
+    // <context.topic> returns the topic the message was published on.
+    // <context.source> returns the name of the server that published the message.
+    // <context.message> returns the published message, as whatever type it was sent as.
+    //
+    // @Plugin Depenizen, DepenizenBungee, BungeeCord
+    //
+    // @Group Depenizen
+    //
+    // -->
+
+    public BungeeMessageScriptEvent() {
+        instance = this;
+        registerCouldMatcher("bungee message");
+        registerSwitches("topic");
+    }
+
+    public static BungeeMessageScriptEvent instance;
+
+    public String source;
+
+    public String topic;
+
+    public ObjectTag message;
+
+    @Override
+    public boolean matches(ScriptPath path) {
+        if (!runGenericSwitchCheck(path, "topic", topic)) {
+            return false;
+        }
+        return super.matches(path);
+    }
+
+    @Override
+    public void init() {
+        // Plain topic names are forwarded selectively by the proxy, anything needing a matcher means listening to everything
+        Set<String> topics = new HashSet<>();
+        boolean all = false;
+        for (ScriptPath path : eventPaths) {
+            String topic = path.switches.get("topic");
+            if (topic == null || !CoreUtilities.toLowerCase(topic).matches("[a-z0-9_.\\-]+")) {
+                all = true;
+                break;
+            }
+            topics.add(CoreUtilities.toLowerCase(topic));
+        }
+        BungeeBridge.instance.setSubscriptions(all, topics);
+    }
+
+    @Override
+    public void destroy() {
+        BungeeBridge.instance.setSubscriptions(false, new HashSet<>());
+    }
+
+    @Override
+    public ScriptEntryData getScriptEntryData() {
+        return new BukkitScriptEntryData(null, null);
+    }
+
+    @Override
+    public ObjectTag getContext(String name) {
+        return switch (name) {
+            case "topic" -> new ElementTag(topic);
+            case "source" -> new ElementTag(source);
+            case "message" -> message;
+            default -> super.getContext(name);
+        };
+    }
+
+    public void fire(String source, String topic, ObjectTag message) {
+        this.source = source;
+        this.topic = topic;
+        this.message = message;
+        fire();
+    }
+}
@@ -2,12 +2,10 @@ package com.denizenscript.depenizen.bukkit.events.bungee;
 
 import com.denizenscript.denizen.utilities.implementation.BukkitScriptEntryData;
 import com.denizenscript.denizen.events.BukkitScriptEvent;
-import com.denizenscript.denizen.objects.PlayerTag;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
 import com.denizenscript.denizencore.objects.core.ElementTag;
 import com.denizenscript.denizencore.objects.ObjectTag;
 import com.denizenscript.denizencore.scripts.ScriptEntryData;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 
 import java.util.UUID;
 
@@ -53,17 +51,7 @@ public class BungeePlayerQuitsScriptEvent extends BukkitScriptEvent {
 
     @Override
     public ScriptEntryData getScriptEntryData() {
-        OfflinePlayer player = null;
-        try {
-            player = Bukkit.getOfflinePlayer(uuid);
-            if (!player.isOnline() && !player.hasPlayedBefore()) {
-                player = null;
-            }
-        }
-        catch (IllegalArgumentException ex) {
-            // Ignore.
-        }
-        return new BukkitScriptEntryData(player == null ? null : new PlayerTag(player), null);
+        return new BukkitScriptEntryData(BungeeBridge.instance.playerResolver.resolveLocal(uuid), null);
     }
 
     @Override
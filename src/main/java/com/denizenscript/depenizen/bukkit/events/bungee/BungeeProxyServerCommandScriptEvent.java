@@ -1,6 +1,5 @@
 package com.denizenscript.depenizen.bukkit.events.bungee;
 
-import com.denizenscript.denizen.objects.PlayerTag;
 import com.denizenscript.denizen.utilities.implementation.BukkitScriptEntryData;
 import com.denizenscript.denizen.events.BukkitScriptEvent;
 import com.denizenscript.denizencore.objects.ObjectTag;
@@ -8,8 +7,6 @@ import com.denizenscript.denizencore.objects.core.ElementTag;
 import com.denizenscript.denizencore.scripts.ScriptEntryData;
 import com.denizenscript.denizencore.utilities.CoreUtilities;
 import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 
 import java.util.UUID;
 
@@ -84,19 +81,7 @@ public class BungeeProxyServerCommandScriptEvent extends BukkitScriptEvent {
 
     @Override
     public ScriptEntryData getScriptEntryData() {
-        OfflinePlayer player = null;
-        if (senderId != null) {
-            try {
-                player = Bukkit.getOfflinePlayer(senderId);
-                if (!player.isOnline() && !player.hasPlayedBefore()) {
-                    player = null;
-                }
-            }
-            catch (IllegalArgumentException ex) {
-                // Ignore.
-            }
-        }
-        return new BukkitScriptEntryData(player == null ? null : new PlayerTag(player), null);
+        return new BukkitScriptEntryData(BungeeBridge.instance.playerResolver.resolveLocal(senderId), null);
     }
 
     @Override
@@ -28,13 +28,22 @@ public abstract class PacketIn {
             fail("Invalid " + getName() + " Packet string '" + label + "' (bytes requested: " + len + ", bytes available: " + buf.readableBytes() + ")");
             return null;
         }
-        byte[] strBytes = new byte[len];
-        buf.readBytes(strBytes, 0, len);
-        return new String(strBytes, StandardCharsets.UTF_8);
+        String str = buf.toString(buf.readerIndex(), len, StandardCharsets.UTF_8);
+        buf.skipBytes(len);
+        return str;
     }
 
     public Map<String, String> readStringMap(ByteBuf buf) {
+        if (buf.readableBytes() < 4) {
+            fail("Invalid " + getName() + " Packet map size bytes (needed 4)");
+            return null;
+        }
         int size = buf.readInt();
+        // Every entry needs at least two string lengths, so anything larger can't be valid and shouldn't be allocated for
+        if (size < 0 || size > buf.readableBytes() / 8) {
+            fail("Invalid " + getName() + " Packet map size (size: " + size + ", bytes available: " + buf.readableBytes() + ")");
+            return null;
+        }
         Map<String, String> stringMap = new HashMap<>(size);
         for (int i = 0; i < size; i++) {
             String key = readString(buf, "Map key");
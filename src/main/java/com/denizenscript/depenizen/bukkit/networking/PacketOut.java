@@ -1,8 +1,8 @@
 package com.denizenscript.depenizen.bukkit.networking;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.function.BiConsumer;
 
@@ -11,9 +11,11 @@ public abstract class PacketOut {
     public abstract void writeTo(ByteBuf buf);
 
     public void writeString(ByteBuf buf, String str) {
-        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
-        buf.writeInt(bytes.length);
-        buf.writeBytes(bytes);
+        // Encodes straight into the buffer, then fills in the length
+        int lengthIndex = buf.writerIndex();
+        buf.writeInt(0);
+        int length = ByteBufUtil.writeUtf8(buf, str);
+        buf.setInt(lengthIndex, length);
     }
 
     public void writeStringMap(ByteBuf buf, Map<String, String> stringMap) {
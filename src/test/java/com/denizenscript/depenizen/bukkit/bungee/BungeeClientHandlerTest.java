@@ -0,0 +1,145 @@
+package com.denizenscript.depenizen.bukkit.bungee;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BungeeClientHandlerTest {
+
+    public static class RecordingPacketIn extends BungeePacketIn {
+
+        public final List<byte[]> payloads = new ArrayList<>();
+
+        public final List<Integer> capacities = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "Recording";
+        }
+
+        @Override
+        public void process(ByteBuf data) {
+            capacities.add(data.capacity());
+            byte[] bytes = new byte[data.readableBytes()];
+            data.readBytes(bytes);
+            payloads.add(bytes);
+        }
+    }
+
+    public static final int PACKET_ID = 60;
+
+    public RecordingPacketIn packet;
+
+    public BungeeClientHandler handler;
+
+    public EmbeddedChannel channel;
+
+    @BeforeEach
+    public void setUp() {
+        BungeeBridge.instance = new BungeeBridge();
+        packet = new RecordingPacketIn();
+        BungeeBridge.instance.packets.put(PACKET_ID, packet);
+        channel = new EmbeddedChannel();
+        handler = new BungeeClientHandler();
+        handler.channel = channel;
+        // Added once the channel is already active, so it doesn't send the handshake (which needs a running server)
+        channel.pipeline().addLast(handler);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // The channel isn't closed, as closing reconnects through the Bukkit scheduler
+        handler.releaseBuf();
+        BungeeBridge.instance = null;
+    }
+
+    public static byte[] payload(int length, int seed) {
+        byte[] payload = new byte[length];
+        for (int i = 0; i < length; i++) {
+            payload[i] = (byte) (seed + i);
+        }
+        return payload;
+    }
+
+    public static byte[] frames(byte[]... payloads) {
+        ByteBuf buf = Unpooled.buffer();
+        for (byte[] payload : payloads) {
+            buf.writeInt(payload.length);
+            buf.writeInt(PACKET_ID);
+            buf.writeBytes(payload);
+        }
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    public void read(byte[] stream, int from, int to) {
+        channel.writeInbound(Unpooled.copiedBuffer(stream, from, to - from));
+    }
+
+    public void assertReceived(byte[]... expected) {
+        assertEquals(expected.length, packet.payloads.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], packet.payloads.get(i));
+            // Each packet only gets a slice of its own data, and can't read into the next one
+            assertEquals(expected[i].length, packet.capacities.get(i));
+        }
+    }
+
+    @Test
+    public void framesSplitAtEveryOffset() {
+        byte[][] payloads = {payload(0, 1), payload(5, 2), payload(300, 3)};
+        byte[] stream = frames(payloads);
+        for (int split = 1; split < stream.length; split++) {
+            tearDown();
+            setUp();
+            read(stream, 0, split);
+            read(stream, split, stream.length);
+            assertReceived(payloads);
+            assertNull(handler.packetBuffer);
+        }
+    }
+
+    @Test
+    public void oneByteAtATime() {
+        byte[][] payloads = {payload(12, 4), payload(1, 5), payload(70, 6)};
+        byte[] stream = frames(payloads);
+        for (int i = 0; i < stream.length; i++) {
+            read(stream, i, i + 1);
+        }
+        assertReceived(payloads);
+        assertNull(handler.packetBuffer);
+    }
+
+    @Test
+    public void manyFramesInOneRead() {
+        byte[][] payloads = new byte[1000][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = payload(i % 50, i);
+        }
+        byte[] stream = frames(payloads);
+        read(stream, 0, stream.length);
+        assertReceived(payloads);
+        assertNull(handler.packetBuffer);
+    }
+
+    @Test
+    public void keepsPartialFrameUntilComplete() {
+        byte[] payload = payload(100, 7);
+        byte[] stream = frames(payload);
+        read(stream, 0, 50);
+        assertReceived();
+        assertEquals(50 - 8, handler.packetBuffer.readableBytes());
+        read(stream, 50, stream.length);
+        assertReceived(payload);
+        assertNull(handler.packetBuffer);
+    }
+}
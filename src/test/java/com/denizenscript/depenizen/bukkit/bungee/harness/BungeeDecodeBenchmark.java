@@ -0,0 +1,162 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.BungeeClientHandler;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketIn;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode throughput of {@link BungeeClientHandler} against the previous copy-and-reallocate decoder, on a synthetic stream of packets split into reads of a fixed size.
+ * Each operation decodes the whole stream of {@link #PACKETS} packets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BungeeDecodeBenchmark {
+
+    public static final int PACKETS = 10_000;
+
+    public static final int PACKET_ID = 60;
+
+    @Param({"64", "2048"})
+    public int maxPayload;
+
+    @Param({"1460", "65536"})
+    public int readSize;
+
+    public static class CountingPacketIn extends BungeePacketIn {
+
+        public long count;
+
+        @Override
+        public String getName() {
+            return "Counting";
+        }
+
+        @Override
+        public void process(ByteBuf data) {
+            data.skipBytes(data.readableBytes());
+            count++;
+        }
+    }
+
+    /**
+     * The decoder as it was before decoding from slices: every read is copied into the buffer, and the unread rest is copied into a new buffer after every packet.
+     */
+    public static class LegacyDecoder {
+
+        public ByteBuf packetBuffer = ByteBufAllocator.DEFAULT.buffer(32);
+
+        public boolean awaitingData = false;
+
+        public int waitingLength;
+
+        public long count;
+
+        public void channelRead(ByteBuf m) {
+            packetBuffer.writeBytes(m);
+            m.release();
+            while (true) {
+                if (!awaitingData) {
+                    if (packetBuffer.readableBytes() < 8) {
+                        return;
+                    }
+                    waitingLength = packetBuffer.readInt();
+                    packetBuffer.readInt();
+                    awaitingData = true;
+                }
+                else {
+                    if (packetBuffer.readableBytes() < waitingLength) {
+                        return;
+                    }
+                    packetBuffer.skipBytes(waitingLength);
+                    count++;
+                    awaitingData = false;
+                    ByteBuf newBuf = ByteBufAllocator.DEFAULT.buffer(32);
+                    newBuf.writeBytes(packetBuffer);
+                    packetBuffer.release();
+                    packetBuffer = newBuf;
+                }
+            }
+        }
+    }
+
+    public byte[] stream;
+
+    public List<ByteBuf> reads = new ArrayList<>();
+
+    public CountingPacketIn packet;
+
+    public EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        Random random = new Random(12345);
+        ByteBuf buf = ByteBufAllocator.DEFAULT.heapBuffer();
+        for (int i = 0; i < PACKETS; i++) {
+            byte[] payload = new byte[random.nextInt(maxPayload + 1)];
+            random.nextBytes(payload);
+            buf.writeInt(payload.length);
+            buf.writeInt(PACKET_ID);
+            buf.writeBytes(payload);
+        }
+        stream = new byte[buf.readableBytes()];
+        buf.readBytes(stream);
+        buf.release();
+        BungeeBridge.instance = new BungeeBridge();
+        packet = new CountingPacketIn();
+        BungeeBridge.instance.packets.put(PACKET_ID, packet);
+        channel = new EmbeddedChannel();
+        BungeeClientHandler handler = new BungeeClientHandler();
+        handler.channel = channel;
+        // Added once the channel is already active, so it doesn't send the handshake (which needs a running server)
+        channel.pipeline().addLast(handler);
+    }
+
+    @Setup(Level.Invocation)
+    public void splitReads() {
+        reads.clear();
+        for (int offset = 0; offset < stream.length; offset += readSize) {
+            int length = Math.min(readSize, stream.length - offset);
+            reads.add(ByteBufAllocator.DEFAULT.directBuffer(length).writeBytes(stream, offset, length));
+        }
+    }
+
+    @Benchmark
+    public long legacy() {
+        LegacyDecoder decoder = new LegacyDecoder();
+        for (ByteBuf read : reads) {
+            decoder.channelRead(read);
+        }
+        decoder.packetBuffer.release();
+        return decoder.count;
+    }
+
+    @Benchmark
+    public long sliced() {
+        for (ByteBuf read : reads) {
+            channel.writeInbound(read);
+        }
+        return packet.count;
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).include(BungeeDecodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
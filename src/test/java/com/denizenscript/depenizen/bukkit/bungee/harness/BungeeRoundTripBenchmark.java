@@ -0,0 +1,54 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of held 'bungeerun' and 'bungeetag' requests through a {@link StandInProxy}, each being two redirected packets.
+ * Throughput mode reports round trips per millisecond, sample time mode reports the latency percentiles (including p0.99).
+ * Run the main method with the test classpath, or pass JMH options like '-t 8' (concurrent requesters) or '-p latencyMillis=5'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BungeeRoundTripBenchmark {
+
+    @Param({"0"})
+    public long latencyMillis;
+
+    public StandInNetwork network;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        network = new StandInNetwork(0, 2);
+        network.proxy.latencyMillis = latencyMillis;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        network.close();
+    }
+
+    @Benchmark
+    public String bungeeRun() throws Exception {
+        return network.requester().runScript("server2", "my_task", "a|b|c").get(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public String bungeeTag() throws Exception {
+        return network.requester().readTag("server2", "<player.name>").get(10, TimeUnit.SECONDS);
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).include(BungeeRoundTripBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,35 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single length/id framed packet, as sent both ways between backends and the proxy.
+ * The payload is owned by whoever receives the frame, and has to be released.
+ */
+public record Frame(int id, ByteBuf payload) {
+
+    public static ByteBuf encode(ByteBufAllocator alloc, int id, ByteBuf payload) {
+        ByteBuf buf = alloc.buffer(8 + payload.readableBytes());
+        buf.writeInt(payload.readableBytes());
+        buf.writeInt(id);
+        buf.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+        return buf;
+    }
+
+    public static void writeString(ByteBuf buf, String str) {
+        int lengthIndex = buf.writerIndex();
+        buf.writeInt(0);
+        buf.setInt(lengthIndex, ByteBufUtil.writeUtf8(buf, str));
+    }
+
+    public static String readString(ByteBuf buf) {
+        int length = buf.readInt();
+        String str = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return str;
+    }
+}
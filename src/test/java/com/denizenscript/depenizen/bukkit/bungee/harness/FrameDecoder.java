@@ -0,0 +1,46 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeClientHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.List;
+
+/**
+ * Splits a stream into {@link Frame}s. On the proxy side, the stream first has to start with {@link BungeeClientHandler#FAKE_HANDSHAKE}.
+ */
+public class FrameDecoder extends ByteToMessageDecoder {
+
+    public FrameDecoder(boolean expectHandshake) {
+        handshakeRead = expectHandshake ? 0 : BungeeClientHandler.FAKE_HANDSHAKE.length;
+    }
+
+    public int handshakeRead;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (handshakeRead < BungeeClientHandler.FAKE_HANDSHAKE.length) {
+            if (!in.isReadable()) {
+                return;
+            }
+            if (in.readByte() != BungeeClientHandler.FAKE_HANDSHAKE[handshakeRead]) {
+                throw new CorruptedFrameException("Invalid handshake byte at index " + handshakeRead);
+            }
+            handshakeRead++;
+        }
+        while (in.readableBytes() >= 8) {
+            int length = in.getInt(in.readerIndex());
+            if (length < 0) {
+                throw new CorruptedFrameException("Invalid frame length " + length);
+            }
+            if (in.readableBytes() < 8 + length) {
+                return;
+            }
+            in.skipBytes(4);
+            int id = in.readInt();
+            out.add(new Frame(id, in.readRetainedSlice(length)));
+        }
+    }
+}
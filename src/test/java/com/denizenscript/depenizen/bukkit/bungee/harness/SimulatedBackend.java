@@ -0,0 +1,206 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeClientHandler;
+import com.denizenscript.depenizen.bukkit.bungee.BungeePacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.MyInfoPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.RedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.ReadTagPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunScriptPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.RunScriptResponsePacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.TagResponsePacketOut;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A backend server connected to a {@link StandInProxy}, without Bukkit or Denizen running.
+ * Packets are encoded by the real {@link BungeePacketOut} classes and framed the same way as {@link com.denizenscript.depenizen.bukkit.bungee.BungeeBridge}.
+ * Received packets are passed as raw payloads to the {@link #handlers} registered for their ID.
+ */
+public class SimulatedBackend implements AutoCloseable {
+
+    /**
+     * @param port the port reported to the proxy in MyInfo, which the proxy uses to name this server.
+     */
+    public SimulatedBackend(int port) {
+        this.port = port;
+        handlers.put(60, data -> { // TagResponse
+            String result = Frame.readString(data);
+            CompletableFuture<String> future = pendingTags.remove(data.readInt());
+            if (future != null) {
+                future.complete(result);
+            }
+        });
+        handlers.put(67, data -> { // RunScriptResponse
+            int id = data.readInt();
+            data.readBoolean();
+            String result = Frame.readString(data);
+            CompletableFuture<String> future = pendingRuns.remove(id);
+            if (future != null) {
+                future.complete(result);
+            }
+        });
+    }
+
+    public final int port;
+
+    public volatile String name;
+
+    public final CountDownLatch ready = new CountDownLatch(1);
+
+    public final List<String> knownServers = new CopyOnWriteArrayList<>();
+
+    public final Map<Integer, Consumer<ByteBuf>> handlers = new ConcurrentHashMap<>();
+
+    public final Map<Integer, CompletableFuture<String>> pendingRuns = new ConcurrentHashMap<>();
+
+    public final Map<Integer, CompletableFuture<String>> pendingTags = new ConcurrentHashMap<>();
+
+    public final AtomicInteger nextRequestId = new AtomicInteger();
+
+    public EventLoopGroup group;
+
+    public Channel channel;
+
+    public void connect(int proxyPort) throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        channel = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new FrameDecoder(false), new Receiver());
+                    }
+                })
+                .connect("127.0.0.1", proxyPort).sync().channel();
+        channel.writeAndFlush(Unpooled.wrappedBuffer(BungeeClientHandler.FAKE_HANDSHAKE));
+        send(new MyInfoPacketOut(port));
+        if (!ready.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The proxy did not answer MyInfo");
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+        if (group != null) {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    public void send(BungeePacketOut packet) {
+        ByteBuf buf = channel.alloc().buffer();
+        buf.writerIndex(8);
+        packet.writeTo(buf);
+        buf.setInt(0, buf.writerIndex() - 8);
+        buf.setInt(4, packet.getPacketId());
+        channel.writeAndFlush(buf);
+    }
+
+    /**
+     * Sends a held 'bungeerun' to the target, completing with its determinations.
+     */
+    public CompletableFuture<String> runScript(String target, String script, String defs) {
+        int id = nextRequestId.incrementAndGet();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pendingRuns.put(id, future);
+        RunScriptPacketOut packet = new RunScriptPacketOut();
+        packet.scriptName = script;
+        packet.defs = defs;
+        packet.playerUUID = new UUID(0, 0);
+        packet.responseServer = name;
+        packet.responseId = id;
+        send(new RedirectPacketOut(target, packet));
+        return future;
+    }
+
+    /**
+     * Sends a 'bungeetag' to the target, completing with its result.
+     * {@link ReadTagPacketOut} names the response server from {@link com.denizenscript.depenizen.bukkit.bungee.BungeeBridge#instance}, so that has to be this server's name.
+     */
+    public CompletableFuture<String> readTag(String target, String tag) {
+        int id = nextRequestId.incrementAndGet();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pendingTags.put(id, future);
+        ReadTagPacketOut packet = new ReadTagPacketOut();
+        packet.tag = tag;
+        packet.defs = Collections.emptyMap();
+        packet.playerUUID = new UUID(0, 0);
+        packet.id = id;
+        send(new RedirectPacketOut(target, packet));
+        return future;
+    }
+
+    /**
+     * Answers 'bungeerun' by determining its definitions back, and 'bungeetag' with the tag text itself.
+     * Only the legacy definitions format is understood.
+     */
+    public void answerRequests() {
+        handlers.put(57, data -> { // RunScript
+            Frame.readString(data);
+            String defs = Frame.readString(data);
+            data.skipBytes(16);
+            if (data.readableBytes() >= 8) {
+                String responseServer = Frame.readString(data);
+                send(new RedirectPacketOut(responseServer, new RunScriptResponsePacketOut(data.readInt(), true, defs)));
+            }
+        });
+        handlers.put(59, data -> { // ReadTag
+            String responseServer = Frame.readString(data);
+            TagResponsePacketOut response = new TagResponsePacketOut();
+            response.result = Frame.readString(data);
+            Frame.readString(data);
+            data.skipBytes(16);
+            response.id = data.readInt();
+            send(new RedirectPacketOut(responseServer, response));
+        });
+    }
+
+    public class Receiver extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Frame frame = (Frame) msg;
+            try {
+                switch (frame.id()) {
+                    case 50 -> { // YourInfo
+                        name = Frame.readString(frame.payload());
+                        ready.countDown();
+                    }
+                    case 51 -> knownServers.add(Frame.readString(frame.payload())); // AddServer
+                    default -> {
+                        Consumer<ByteBuf> handler = handlers.get(frame.id());
+                        if (handler != null) {
+                            handler.accept(frame.payload());
+                        }
+                    }
+                }
+            }
+            finally {
+                frame.payload().release();
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            cause.printStackTrace();
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link StandInProxy} with a number of {@link SimulatedBackend}s connected, named "server1", "server2" and so on.
+ * The first backend sends requests, every other backend answers them.
+ */
+public class StandInNetwork implements AutoCloseable {
+
+    public StandInNetwork(int features, int backendCount) throws InterruptedException {
+        proxy = new StandInProxy(features);
+        int proxyPort = proxy.start();
+        // Packet classes read the local server's state, so this process acts as the first backend
+        BungeeBridge.instance = new BungeeBridge();
+        BungeeBridge.instance.proxyFeatures = features;
+        for (int i = 1; i <= backendCount; i++) {
+            proxy.serverNames.put(25564 + i, "server" + i);
+            SimulatedBackend backend = new SimulatedBackend(25564 + i);
+            backend.connect(proxyPort);
+            if (i > 1) {
+                backend.answerRequests();
+            }
+            backends.add(backend);
+        }
+        BungeeBridge.instance.serverName = backends.get(0).name;
+    }
+
+    public final StandInProxy proxy;
+
+    public final List<SimulatedBackend> backends = new ArrayList<>();
+
+    public SimulatedBackend requester() {
+        return backends.get(0);
+    }
+
+    @Override
+    public void close() {
+        for (SimulatedBackend backend : backends) {
+            backend.close();
+        }
+        proxy.close();
+        BungeeBridge.instance = null;
+    }
+}
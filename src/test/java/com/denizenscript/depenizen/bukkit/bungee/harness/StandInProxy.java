@@ -0,0 +1,193 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for a BungeeCord proxy running DepenizenBungee, for tests and benchmarks.
+ * Accepts backends on localhost, checks the fake handshake, answers MyInfo, and routes redirected and multicast packets between backends.
+ * Routed packets can be delayed by {@link #latencyMillis} and randomly dropped at {@link #lossRate}.
+ */
+public class StandInProxy implements AutoCloseable {
+
+    /**
+     * @param features the feature bits announced in YourInfo, see {@link BungeeBridge#FEATURE_BINARY_DEFINITIONS} and the others.
+     */
+    public StandInProxy(int features) {
+        this.features = features;
+    }
+
+    public final int features;
+
+    public volatile long latencyMillis = 0;
+
+    public volatile double lossRate = 0;
+
+    public final AtomicLong routed = new AtomicLong();
+
+    public final AtomicLong lost = new AtomicLong();
+
+    public final AtomicLong unroutable = new AtomicLong();
+
+    /**
+     * Backend names by the port they report in MyInfo, like the servers list in a real proxy's config.
+     */
+    public final Map<Integer, String> serverNames = new ConcurrentHashMap<>();
+
+    public final Map<String, Channel> servers = new ConcurrentHashMap<>();
+
+    public EventLoopGroup group;
+
+    public Channel serverChannel;
+
+    /**
+     * Starts listening on an ephemeral localhost port, and returns that port.
+     */
+    public int start() throws InterruptedException {
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    public void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new FrameDecoder(true), new Connection());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        if (group != null) {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    public void send(Channel channel, int id, ByteBuf payload) {
+        channel.writeAndFlush(Frame.encode(channel.alloc(), id, payload));
+    }
+
+    public void route(String target, int id, ByteBuf payload) {
+        Channel channel = servers.get(target);
+        if (channel == null) {
+            unroutable.incrementAndGet();
+            return;
+        }
+        double loss = lossRate;
+        if (loss > 0 && ThreadLocalRandom.current().nextDouble() < loss) {
+            lost.incrementAndGet();
+            return;
+        }
+        routed.incrementAndGet();
+        // Encoded right away, the payload is released once the current frame is handled
+        ByteBuf frame = Frame.encode(channel.alloc(), id, payload);
+        long latency = latencyMillis;
+        if (latency > 0) {
+            channel.eventLoop().schedule(() -> channel.writeAndFlush(frame), latency, TimeUnit.MILLISECONDS);
+        }
+        else {
+            channel.writeAndFlush(frame);
+        }
+    }
+
+    public class Connection extends ChannelInboundHandlerAdapter {
+
+        public String name;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Frame frame = (Frame) msg;
+            try {
+                handle(ctx.channel(), frame.id(), frame.payload());
+            }
+            finally {
+                frame.payload().release();
+            }
+        }
+
+        public void handle(Channel channel, int id, ByteBuf data) {
+            switch (id) {
+                case 1 -> send(channel, 1, data); // KeepAlive, echoed back so RTT measurement works
+                case 11 -> { // MyInfo
+                    int port = data.readInt();
+                    name = serverNames.getOrDefault(port, "server" + port);
+                    ByteBuf yourInfo = channel.alloc().buffer();
+                    Frame.writeString(yourInfo, name);
+                    yourInfo.writeInt(features);
+                    send(channel, 50, yourInfo);
+                    yourInfo.release();
+                    for (Map.Entry<String, Channel> other : servers.entrySet()) {
+                        sendAddServer(channel, other.getKey());
+                        sendAddServer(other.getValue(), name);
+                    }
+                    servers.put(name, channel);
+                }
+                case 14 -> { // Redirect
+                    String target = Frame.readString(data);
+                    int length = data.readInt();
+                    int innerId = data.readInt();
+                    route(target, innerId, data.readSlice(length));
+                }
+                case 20 -> { // MulticastRedirect
+                    int count = data.readInt();
+                    List<String> targets = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        targets.add(Frame.readString(data));
+                    }
+                    if (targets.contains(BungeeBridge.ALL_SERVERS)) {
+                        targets = new ArrayList<>(servers.keySet());
+                        targets.remove(name);
+                    }
+                    int length = data.readInt();
+                    int innerId = data.readInt();
+                    ByteBuf inner = data.readSlice(length);
+                    for (String target : targets) {
+                        route(target, innerId, inner);
+                    }
+                }
+                default -> {
+                    // Proxy-side features (ping control, proxy commands, topics, ...) aren't simulated
+                }
+            }
+        }
+
+        public void sendAddServer(Channel channel, String server) {
+            ByteBuf addServer = channel.alloc().buffer();
+            Frame.writeString(addServer, server);
+            send(channel, 51, addServer);
+            addServer.release();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (name != null) {
+                servers.remove(name, ctx.channel());
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
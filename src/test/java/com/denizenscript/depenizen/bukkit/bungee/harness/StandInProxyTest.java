@@ -0,0 +1,88 @@
+package com.denizenscript.depenizen.bukkit.bungee.harness;
+
+import com.denizenscript.depenizen.bukkit.bungee.BungeeBridge;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.MulticastRedirectPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.EncodedPacketOut;
+import com.denizenscript.depenizen.bukkit.bungee.packets.out.redirectable.TagResponsePacketOut;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StandInProxyTest {
+
+    public StandInNetwork network;
+
+    @AfterEach
+    public void tearDown() {
+        if (network != null) {
+            network.close();
+        }
+    }
+
+    @Test
+    public void announcesServers() throws Exception {
+        network = new StandInNetwork(0, 3);
+        assertEquals("server1", network.requester().name);
+        // Other servers are announced on their own connections, so may arrive slightly later
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (network.requester().knownServers.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("server2", "server3"), network.requester().knownServers);
+    }
+
+    @Test
+    public void routesBungeeRunResponses() throws Exception {
+        network = new StandInNetwork(0, 2);
+        String result = network.requester().runScript("server2", "my_task", "a|b|c").get(5, TimeUnit.SECONDS);
+        assertEquals("a|b|c", result);
+        assertEquals(2, network.proxy.routed.get());
+    }
+
+    @Test
+    public void routesBungeeTagResponses() throws Exception {
+        network = new StandInNetwork(0, 2);
+        String result = network.requester().readTag("server2", "<server.online_players.size>").get(5, TimeUnit.SECONDS);
+        assertEquals("<server.online_players.size>", result);
+    }
+
+    @Test
+    public void multicastsToEveryOtherServer() throws Exception {
+        network = new StandInNetwork(BungeeBridge.FEATURE_MULTICAST, 3);
+        CountDownLatch received = new CountDownLatch(2);
+        for (SimulatedBackend backend : network.backends.subList(1, 3)) {
+            backend.handlers.put(60, data -> received.countDown());
+        }
+        TagResponsePacketOut packet = new TagResponsePacketOut();
+        packet.result = "hello";
+        network.requester().send(new MulticastRedirectPacketOut(List.of(BungeeBridge.ALL_SERVERS), new EncodedPacketOut(packet)));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void injectsLatency() throws Exception {
+        network = new StandInNetwork(0, 2);
+        network.proxy.latencyMillis = 100;
+        long start = System.nanoTime();
+        network.requester().runScript("server2", "my_task", "").get(5, TimeUnit.SECONDS);
+        // Both the request and the response are delayed
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void injectsLoss() throws Exception {
+        network = new StandInNetwork(0, 2);
+        network.proxy.lossRate = 1;
+        CompletableFuture<String> result = network.requester().runScript("server2", "my_task", "");
+        assertThrows(TimeoutException.class, () -> result.get(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, network.proxy.lost.get());
+        assertEquals(0, network.proxy.routed.get());
+    }
+}